@@ -2,8 +2,10 @@ package siwes.project.school_website;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SchoolWebsiteApplication {
 
 	public static void main(String[] args) {
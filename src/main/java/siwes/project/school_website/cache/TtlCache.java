@@ -0,0 +1,125 @@
+package siwes.project.school_website.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small in-memory cache with a hard size bound (least-recently-used entries go first)
+ * and a time-to-live per entry. Reads and writes are serialized on the cache itself,
+ * which is fine for the short critical sections involved here.
+ */
+public class TtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TtlCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt - now > 0) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Returns the cached value or computes it outside the lock. A {@code null} result
+     * from the loader is not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        long expiresAt = System.nanoTime() + ttlNanos;
+        synchronized (this) {
+            entries.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateIf(Predicate<? super V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value));
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Drops expired entries eagerly; normally they are only removed when read.
+     */
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        synchronized (this) {
+            Iterator<Entry<V>> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().expiresAt - now <= 0) {
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size(), maxSize);
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, int size, int maxSize) {
+    }
+}
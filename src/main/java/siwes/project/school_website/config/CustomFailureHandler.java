@@ -0,0 +1,33 @@
+package siwes.project.school_website.config;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.stereotype.Component;
+import siwes.project.school_website.exception.PasswordHashingBusyException;
+
+import java.io.IOException;
+
+@Component
+public class CustomFailureHandler implements AuthenticationFailureHandler {
+
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response, AuthenticationException exception) throws IOException, ServletException {
+        if (isBusy(exception)) {
+            response.sendRedirect("/login?busy");
+        } else {
+            response.sendRedirect("/login?error");
+        }
+    }
+
+    private boolean isBusy(Throwable exception) {
+        for (Throwable t = exception; t != null; t = t.getCause()) {
+            if (t instanceof PasswordHashingBusyException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,129 @@
+package siwes.project.school_website.config;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import siwes.project.school_website.exception.PasswordHashingBusyException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BCrypt encoder that runs every hash on a dedicated, core-count-sized pool instead of
+ * the calling Tomcat thread. The pool has a bounded wait queue; once it is full new
+ * requests fail fast with {@link PasswordHashingBusyException} rather than piling up
+ * and starving the rest of the application of CPU.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+    private final boolean rehashEnabled;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public PooledPasswordEncoder(int strength, int threads, int queueCapacity, Duration maxWait, boolean rehashEnabled) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.rehashEnabled = rehashEnabled;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Only reports an upgrade when rehashing is switched on, so Spring Security's
+     * UserDetailsPasswordService hook rewrites weaker hashes after a successful login.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return rehashEnabled && delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    record(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many sign-in attempts right now, please try again in a moment.");
+        }
+        try {
+            return future.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many sign-in attempts right now, please try again in a moment.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PasswordHashingBusyException("Password check was interrupted, please try again.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    private void record(long nanos) {
+        hashes.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public Metrics metrics() {
+        long count = hashes.sum();
+        long total = totalNanos.sum();
+        return new Metrics(count, rejected.sum(),
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(total / count),
+                TimeUnit.NANOSECONDS.toMillis(maxNanos.get()),
+                executor.getActiveCount(), executor.getQueue().size(), executor.getMaximumPoolSize());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    public record Metrics(long hashes, long rejected, long averageMillis, long maxMillis,
+                          int active, int queued, int poolSize) {
+    }
+}
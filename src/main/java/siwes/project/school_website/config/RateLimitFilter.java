@@ -0,0 +1,114 @@
+package siwes.project.school_website.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles the credential endpoints (form login, forgot-password, registration) per
+ * client IP and per submitted identifier. It sits in the security filter chain ahead of
+ * authentication, so a rejected attempt never reaches a repository or the PasswordEncoder.
+ * <p>
+ * The identifier is checked first: one account being hammered is stopped by its own bucket
+ * without draining the address bucket that everyone behind the same proxy or NAT shares.
+ * Behind a reverse proxy the client address comes from X-Forwarded-For, which Tomcat only
+ * honours for the proxies listed in {@code server.tomcat.remoteip.internal-proxies}.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    public RateLimitFilter(Environment env) {
+        // Per-IP limits are looser than per-identifier ones: a whole hostel can share one NAT address.
+        endpoints.put("/login", new Endpoint(env, "login", "username", 60, 30, 10, 5));
+        endpoints.put("/forgot-password", new Endpoint(env, "forgot-password", "email", 20, 10, 3, 1));
+        endpoints.put("/register", new Endpoint(env, "register", "username", 20, 10, 5, 2));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !endpoints.containsKey(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Endpoint endpoint = endpoints.get(request.getServletPath());
+
+        String identifier = request.getParameter(endpoint.identifierParam);
+        if (identifier != null && !identifier.isBlank()) {
+            String idKey = identifier.trim().toLowerCase(Locale.ROOT);
+            if (!endpoint.byIdentifier.tryAcquire(idKey)) {
+                reject(response, endpoint.byIdentifier.secondsUntilRefill(idKey));
+                return;
+            }
+        }
+
+        String ipKey = request.getRemoteAddr();
+        if (!endpoint.byIp.tryAcquire(ipKey)) {
+            reject(response, endpoint.byIp.secondsUntilRefill(ipKey));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfterSeconds)));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Too many attempts. Please wait a moment and try again.");
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval:PT5M}")
+    public void evictIdleBuckets() {
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.byIp.evictIdle();
+            endpoint.byIdentifier.evictIdle();
+        }
+    }
+
+    public Map<String, Map<String, TokenBucketRateLimiter.Stats>> stats() {
+        Map<String, Map<String, TokenBucketRateLimiter.Stats>> stats = new LinkedHashMap<>();
+        endpoints.forEach((path, endpoint) -> {
+            Map<String, TokenBucketRateLimiter.Stats> perKey = new LinkedHashMap<>();
+            perKey.put("ip", endpoint.byIp.stats());
+            perKey.put("identifier", endpoint.byIdentifier.stats());
+            stats.put(path, perKey);
+        });
+        return stats;
+    }
+
+    private static final class Endpoint {
+        private final String identifierParam;
+        private final TokenBucketRateLimiter byIp;
+        private final TokenBucketRateLimiter byIdentifier;
+
+        private Endpoint(Environment env, String name, String identifierParam,
+                         long ipCapacity, long ipPerMinute, long idCapacity, long idPerMinute) {
+            this.identifierParam = identifierParam;
+            this.byIp = limiter(env, name + ".ip", ipCapacity, ipPerMinute);
+            this.byIdentifier = limiter(env, name + ".identifier", idCapacity, idPerMinute);
+        }
+
+        private static TokenBucketRateLimiter limiter(Environment env, String prefix, long capacity, long perMinute) {
+            return new TokenBucketRateLimiter(
+                    env.getProperty("rate-limit." + prefix + ".capacity", Long.class, capacity),
+                    env.getProperty("rate-limit." + prefix + ".per-minute", Long.class, perMinute),
+                    1, TimeUnit.MINUTES);
+        }
+    }
+}
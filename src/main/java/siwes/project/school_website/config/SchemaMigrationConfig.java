@@ -0,0 +1,24 @@
+package siwes.project.school_website.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import siwes.project.school_website.schema.SchemaMigrator;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "schema.migrations.enabled", havingValue = "true", matchIfMissing = true)
+public class SchemaMigrationConfig {
+
+    // Hibernate creates and updates the tables while the entity manager factory starts, so
+    // the scripts (indexes and constraints on those tables) run right after it
+    @Bean(initMethod = "migrate")
+    @DependsOn("entityManagerFactory")
+    public SchemaMigrator schemaMigrator(DataSource dataSource,
+                                         @Value("${schema.migrations.location:classpath:db/migration}") String location) {
+        return new SchemaMigrator(dataSource, location);
+    }
+}
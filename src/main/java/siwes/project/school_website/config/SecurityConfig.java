@@ -1,24 +1,39 @@
 package siwes.project.school_website.config;
 
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.RememberMeServices;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.rememberme.PersistentTokenBasedRememberMeServices;
+import siwes.project.school_website.service.RememberMeTokenService;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
 
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+
     private final CustomSuccessHandler customSuccessHandler;
+    private final CustomFailureHandler customFailureHandler;
     private final CustomAccessDeniedHandler customAccessDeniedHandler;
+    private final RateLimitFilter rateLimitFilter;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, RememberMeServices rememberMeServices) throws Exception {
         http
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/login", "/register", "/forgot-password", "/reset-password", "/css/**", "/js/**", "/images/**", "/favicon.ico", "/h2-console/**").permitAll()
@@ -30,6 +45,7 @@ public class SecurityConfig {
             .formLogin(form -> form
                 .loginPage("/login")
                 .successHandler(customSuccessHandler)
+                .failureHandler(customFailureHandler)
                 .permitAll()
             )
             .logout(logout -> logout
@@ -38,20 +54,52 @@ public class SecurityConfig {
                 .permitAll()
             )
             .rememberMe(rememberMe -> rememberMe
-                .key("uniqueAndSecret")
+                .rememberMeServices(rememberMeServices)
             )
             // Allow H2 Console to render (for development)
             .csrf(csrf -> csrf.ignoringRequestMatchers("/h2-console/**"))
             .headers(headers -> headers.frameOptions(frame -> frame.sameOrigin()))
             .exceptionHandling(ex -> ex
                 .accessDeniedHandler(customAccessDeniedHandler)
-            );
+            )
+            .addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
+    // The rate limiter runs inside the security chain only; keep Boot from also registering it globally.
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public RememberMeServices rememberMeServices(@Value("${security.remember-me.key:}") String key,
+                                                 UserDetailsService userDetailsService,
+                                                 RememberMeTokenService tokenService) {
+        if (key == null || key.isBlank()) {
+            // Cookies are checked against persistent_logins, so they still survive a restart
+            log.warn("security.remember-me.key is not set; using a random per-process key");
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            key = HexFormat.of().formatHex(secret);
+        }
+        PersistentTokenBasedRememberMeServices services =
+                new PersistentTokenBasedRememberMeServices(key, userDetailsService, tokenService);
+        services.setTokenValiditySeconds((int) tokenService.getValidity().toSeconds());
+        return services;
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PooledPasswordEncoder passwordEncoder(
+            @Value("${security.password.bcrypt-strength:10}") int strength,
+            @Value("${security.password.hash-threads:0}") int threads,
+            @Value("${security.password.hash-queue-capacity:200}") int queueCapacity,
+            @Value("${security.password.hash-max-wait:PT5S}") Duration maxWait,
+            @Value("${security.password.rehash-on-login:false}") boolean rehashOnLogin) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new PooledPasswordEncoder(strength, poolSize, queueCapacity, maxWait, rehashOnLogin);
     }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package siwes.project.school_website.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket limiter keyed by an arbitrary string (client IP, login identifier, ...).
+ * Buckets are plain mutable objects guarded by a fixed set of striped locks, so a
+ * request costs one map lookup and one short critical section with no allocation
+ * once its bucket exists. Idle buckets are dropped by {@link #evictIdle()}.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final int STRIPES = 64;
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private final long idleNanos;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[STRIPES];
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public TokenBucketRateLimiter(long capacity, long refillTokens, long refillPeriod, TimeUnit unit) {
+        this(capacity, refillTokens, refillPeriod, unit, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(long capacity, long refillTokens, long refillPeriod, TimeUnit unit, LongSupplier clock) {
+        if (capacity <= 0 || refillTokens <= 0 || refillPeriod <= 0) {
+            throw new IllegalArgumentException("Rate limit values must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = (double) refillTokens / unit.toNanos(refillPeriod);
+        // A bucket that has been idle long enough to refill completely carries no state worth keeping.
+        this.idleNanos = (long) Math.ceil(capacity / tokensPerNano);
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Takes one token for the key. Returns {@code false} when the bucket is empty.
+     */
+    public boolean tryAcquire(String key) {
+        long now = clock.getAsLong();
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, now));
+        boolean granted;
+        synchronized (lockFor(key)) {
+            bucket.refill(now, tokensPerNano, capacity);
+            granted = bucket.tokens >= 1.0;
+            if (granted) {
+                bucket.tokens -= 1.0;
+            }
+        }
+        (granted ? allowed : rejected).increment();
+        return granted;
+    }
+
+    /**
+     * Seconds until the key's bucket holds a whole token again, for Retry-After.
+     */
+    public long secondsUntilRefill(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return 0;
+        }
+        double missing;
+        synchronized (lockFor(key)) {
+            missing = 1.0 - bucket.tokens;
+        }
+        if (missing <= 0) {
+            return 0;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds((long) Math.ceil(missing / tokensPerNano)));
+    }
+
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        buckets.forEach((key, bucket) -> {
+            synchronized (lockFor(key)) {
+                if (now - bucket.lastRefillNanos >= idleNanos && buckets.remove(key, bucket)) {
+                    evicted.increment();
+                }
+            }
+        });
+    }
+
+    public Stats stats() {
+        return new Stats(allowed.sum(), rejected.sum(), evicted.sum(), buckets.size());
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(long capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefillNanos = now;
+        }
+
+        private void refill(long now, double tokensPerNano, long capacity) {
+            long elapsed = now - lastRefillNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+                lastRefillNanos = now;
+            }
+        }
+    }
+
+    public record Stats(long allowed, long rejected, long evicted, int buckets) {
+    }
+}
@@ -0,0 +1,27 @@
+package siwes.project.school_website.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Streaming responses such as CSV exports keep Spring's default async executor, but get
+ * a timeout long enough for a large export to finish.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final Duration streamingTimeout;
+
+    public WebConfig(@Value("${downloads.streaming.timeout:PT30M}") Duration streamingTimeout) {
+        this.streamingTimeout = streamingTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(streamingTimeout.toMillis());
+    }
+}
@@ -2,9 +2,11 @@ package siwes.project.school_website.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,21 +17,21 @@ import siwes.project.school_website.entity.Role;
 import siwes.project.school_website.entity.User;
 import siwes.project.school_website.entity.Department;
 import siwes.project.school_website.entity.Course;
-import siwes.project.school_website.service.AssignmentService;
+import siwes.project.school_website.service.CsvExportService;
+import siwes.project.school_website.service.GradeStatisticsService;
+import siwes.project.school_website.service.ReferenceDataService;
 import siwes.project.school_website.service.UserService;
 import siwes.project.school_website.repository.UserRepository;
 import siwes.project.school_website.repository.DepartmentRepository;
 import siwes.project.school_website.repository.CourseRepository;
 import siwes.project.school_website.repository.AssignmentRepository;
+import siwes.project.school_website.repository.AdminAssignmentRow;
+import siwes.project.school_website.repository.KeysetPage;
 import java.util.List;
-import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.security.Principal;
 
@@ -39,36 +41,73 @@ import java.security.Principal;
 public class AdminController {
 
     private final UserService userService;
-    private final AssignmentService assignmentService;
     private final DepartmentRepository departmentRepository;
     private final CourseRepository courseRepository;
     private final AssignmentRepository assignmentRepository;
     private final UserRepository userRepository;
+    private final ReferenceDataService referenceDataService;
+    private final CsvExportService csvExportService;
+    private final GradeStatisticsService gradeStatisticsService;
 
     @GetMapping("/dashboard")
-    public String dashboard(@RequestParam(required = false) Role role, 
-                            @RequestParam(defaultValue = "0") int page,
-                            @RequestParam(defaultValue = "5") int size,
-                            Model model, Principal principal) {
+    public String dashboard(Model model, Principal principal) {
         String username = principal != null ? principal.getName() : "Admin";
         model.addAttribute("username", username);
+        // Each section fetches its own page once it scrolls into view
+        return "admin/dashboard";
+    }
 
-        // Pass data to the view. You might want to add a method to UserService to fetch all users.
-        model.addAttribute("assignments", assignmentService.getAllAssignments());
-        
-        Pageable pageable = PageRequest.of(page, size);
-        Page<User> users = (role != null) ? userService.getUsersByRole(role, pageable) : userService.getAllUsers(pageable);
-        
-        model.addAttribute("users", users);
-        
+    @GetMapping("/dashboard/users")
+    public String dashboardUsers(@RequestParam(required = false) Role role,
+                                 @RequestParam(required = false) String cursor,
+                                 @RequestParam(defaultValue = "5") int size,
+                                 @RequestParam(defaultValue = "false") boolean count,
+                                 Model model) {
+        int pageSize = clampSize(size);
+        model.addAttribute("users", userService.getAdminUserRows(role, cursor, pageSize, count));
+        model.addAttribute("size", pageSize);
         if (role != null) {
             model.addAttribute("selectedRole", role.name());
         }
-        
-        model.addAttribute("departments", departmentRepository.findAll());
-        model.addAttribute("courses", courseRepository.findAll());
+        return "admin/dashboard-sections :: users";
+    }
 
-        return "admin/dashboard";
+    @GetMapping("/dashboard/departments")
+    public String dashboardDepartments(@RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = "10") int size,
+                                       Model model) {
+        model.addAttribute("departments", departmentRepository.findAll(sectionPage(page, size, Sort.by("name", "id"))));
+        return "admin/dashboard-sections :: departments";
+    }
+
+    @GetMapping("/dashboard/courses")
+    public String dashboardCourses(@RequestParam(defaultValue = "0") int page,
+                                   @RequestParam(defaultValue = "10") int size,
+                                   Model model) {
+        model.addAttribute("courses", courseRepository.findAdminRows(sectionPage(page, size, Sort.unsorted())));
+        return "admin/dashboard-sections :: courses";
+    }
+
+    @GetMapping("/dashboard/assignments")
+    public String dashboardAssignments(@RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "10") int size,
+                                       @RequestParam(defaultValue = "false") boolean count,
+                                       Model model) {
+        int pageSize = clampSize(size);
+        KeysetPage.Cursor before = KeysetPage.Cursor.decode(cursor, new KeysetPage.Cursor("", Long.MAX_VALUE));
+        Slice<AdminAssignmentRow> rows = assignmentRepository.findAdminRowsBefore(before.id(), PageRequest.of(0, pageSize));
+        model.addAttribute("assignments", KeysetPage.of(rows, AdminAssignmentRow::getId, AdminAssignmentRow::getId,
+                count ? assignmentRepository.count() : null));
+        model.addAttribute("size", pageSize);
+        return "admin/dashboard-sections :: assignments";
+    }
+
+    private static Pageable sectionPage(int page, int size, Sort sort) {
+        return PageRequest.of(Math.max(page, 0), clampSize(size), sort);
+    }
+
+    private static int clampSize(int size) {
+        return Math.min(Math.max(size, 1), 100);
     }
 
     @GetMapping("/user/delete/{id}")
@@ -82,15 +121,17 @@ public class AdminController {
         Department dept = new Department();
         dept.setName(name);
         departmentRepository.save(dept);
+        referenceDataService.invalidate();
         return "redirect:/admin/dashboard";
     }
 
     @PostMapping("/course/create")
     @SuppressWarnings("null")
     public String createCourse(@RequestParam String name, @RequestParam Long departmentId) {
-        Department dept = departmentRepository.findById(departmentId).orElseThrow();
+        Department dept = referenceDataService.getDepartmentById(departmentId).orElseThrow();
         Course course = new Course(null, name, dept);
         courseRepository.save(course);
+        referenceDataService.invalidate();
         return "redirect:/admin/dashboard";
     }
 
@@ -100,6 +141,7 @@ public class AdminController {
             throw new IllegalArgumentException("Assignment ID cannot be null");
         }
         assignmentRepository.deleteById(id);
+        gradeStatisticsService.invalidate();
         return "redirect:/admin/dashboard";
     }
 
@@ -108,44 +150,40 @@ public class AdminController {
         if (id == null) {
             throw new IllegalArgumentException("Course ID cannot be null");
         }
-        Course course = courseRepository.findById(id)
+        Course course = referenceDataService.getCourseById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid Course ID"));
         
         List<User> students = userService.getStudentsByDepartment(course.getDepartment());
         
         model.addAttribute("course", course);
         model.addAttribute("students", students);
-        return "admin/course-details";
+        model.addAttribute("statistics", gradeStatisticsService.forCourse(id));
+        return "course-details";
     }
 
     @GetMapping("/course/{id}/export")
-    public void exportCourseStudents(@PathVariable Long id, HttpServletResponse response) throws IOException {
+    public ResponseEntity<StreamingResponseBody> exportCourseStudents(@PathVariable Long id,
+                                                                      @RequestParam(defaultValue = "false") boolean gzip) {
+        return csvExportService.courseStudents(exportedCourse(id), gzip);
+    }
+
+    @GetMapping("/course/{id}/gradebook")
+    public ResponseEntity<StreamingResponseBody> exportCourseGradebook(@PathVariable Long id,
+                                                                       @RequestParam(defaultValue = "false") boolean gzip) {
+        return csvExportService.courseGradebook(exportedCourse(id), gzip);
+    }
+
+    private Course exportedCourse(Long id) {
         if (id == null) {
             throw new IllegalArgumentException("Course ID cannot be null");
         }
-        Course course = courseRepository.findById(id)
+        return referenceDataService.getCourseById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid Course ID"));
-        
-        List<User> students = userService.getStudentsByDepartment(course.getDepartment());
-
-        response.setContentType("text/csv");
-        response.setHeader("Content-Disposition", "attachment; filename=\"students_" + course.getName() + ".csv\"");
-
-        try (PrintWriter writer = response.getWriter()) {
-            writer.println("Full Name,Matric Number,Level,Email,Phone Number");
-            for (User student : students) {
-                writer.println(escapeCsv(student.getFullName()) + "," + 
-                               escapeCsv(student.getMatricNumber()) + "," + 
-                               escapeCsv(student.getLevel()) + "," + 
-                               escapeCsv(student.getEmail()) + "," +
-                               escapeCsv(student.getPhoneNumber()));
-            }
-        }
     }
 
     @GetMapping("/departments")
     public String manageDepartments(Model model) {
-        model.addAttribute("departments", departmentRepository.findAll());
+        model.addAttribute("departments", referenceDataService.getAllDepartments());
         return "admin/manage-departments";
     }
 
@@ -159,6 +197,7 @@ public class AdminController {
         }
         dept.setName(name);
         departmentRepository.save(dept);
+        referenceDataService.invalidate();
         return "redirect:/admin/departments?success";
     }
 
@@ -171,6 +210,8 @@ public class AdminController {
             departmentRepository.deleteById(id);
         } catch (Exception e) {
             return "redirect:/admin/departments?error=ConstraintViolation";
+        } finally {
+            referenceDataService.invalidate();
         }
         return "redirect:/admin/departments?success=deleted";
     }
@@ -193,28 +234,7 @@ public class AdminController {
         String username = principal.getName();
         User user = userService.findByUsername(username).orElseThrow();
 
-        user.setFullName(fullName);
-        user.setEmail(email);
-        user.setPhoneNumber(phoneNumber);
-        user.setAge(age);
-
-        if (file != null && !file.isEmpty()) {
-            Files.createDirectories(Paths.get("uploads"));
-            String filename = System.currentTimeMillis() + "_profile_" + file.getOriginalFilename();
-            Files.copy(file.getInputStream(), Paths.get("uploads").resolve(filename), StandardCopyOption.REPLACE_EXISTING);
-            user.setProfilePic(filename);
-        }
-
-        userRepository.save(user);
+        userService.updateAdminProfile(user, fullName, email, phoneNumber, age, file);
         return "redirect:/admin/profile?success";
     }
-
-    private String escapeCsv(String data) {
-        if (data == null) return "";
-        String escapedData = data.replaceAll("\"", "\"\"");
-        if (data.contains(",") || data.contains("\n") || data.contains("\"")) {
-            data = "\"" + escapedData + "\"";
-        }
-        return data;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package siwes.project.school_website.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import siwes.project.school_website.exception.UploadOffsetMismatchException;
+import siwes.project.school_website.service.ChunkedUploadService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Resumable submission uploads:
+ * <ol>
+ *     <li>{@code POST /student/assignment/{id}/uploads?filename=&size=} opens an upload</li>
+ *     <li>{@code PUT /student/uploads/{uploadId}} with an {@code Upload-Offset} header appends a chunk</li>
+ *     <li>{@code HEAD /student/uploads/{uploadId}} returns the committed offset to resume from</li>
+ *     <li>{@code POST /student/uploads/{uploadId}/finish} submits the assembled file</li>
+ * </ol>
+ */
+@RestController
+@RequestMapping("/student")
+@RequiredArgsConstructor
+public class ChunkedUploadController {
+
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+    static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @PostMapping("/assignment/{id}/uploads")
+    public ResponseEntity<ChunkedUploadService.UploadStatus> start(@PathVariable Long id,
+                                                                   @RequestParam String filename,
+                                                                   @RequestParam long size,
+                                                                   Principal principal) throws IOException {
+        ChunkedUploadService.UploadStatus status = chunkedUploadService.start(principal.getName(), id, filename, size);
+        return ResponseEntity.status(HttpStatus.CREATED).headers(offsetHeaders(status)).body(status);
+    }
+
+    @RequestMapping(value = "/uploads/{uploadId}", method = {RequestMethod.HEAD, RequestMethod.GET})
+    public ResponseEntity<ChunkedUploadService.UploadStatus> status(@PathVariable String uploadId, Principal principal) throws IOException {
+        ChunkedUploadService.UploadStatus status = chunkedUploadService.status(uploadId, principal.getName());
+        return ResponseEntity.ok()
+                .headers(offsetHeaders(status))
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .body(status);
+    }
+
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> append(@PathVariable String uploadId,
+                                       @RequestHeader(UPLOAD_OFFSET) long offset,
+                                       HttpServletRequest request,
+                                       Principal principal) throws IOException {
+        ChunkedUploadService.UploadStatus status;
+        try (InputStream body = request.getInputStream()) {
+            status = chunkedUploadService.append(uploadId, principal.getName(), offset, body);
+        }
+        return ResponseEntity.noContent().headers(offsetHeaders(status)).build();
+    }
+
+    @PostMapping("/uploads/{uploadId}/finish")
+    public Map<String, Object> finish(@PathVariable String uploadId, Principal principal) throws IOException {
+        Long assignmentId = chunkedUploadService.finish(uploadId, principal.getName());
+        return Map.of("assignmentId", assignmentId);
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> cancel(@PathVariable String uploadId, Principal principal) {
+        chunkedUploadService.cancel(uploadId, principal.getName());
+        return ResponseEntity.noContent().build();
+    }
+
+    // The global handler renders HTML error pages; upload clients need status codes they can act on
+    @ExceptionHandler(UploadOffsetMismatchException.class)
+    public ResponseEntity<Map<String, Object>> offsetMismatch(UploadOffsetMismatchException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(UPLOAD_OFFSET, String.valueOf(e.getCommittedOffset()))
+                .body(Map.of("error", e.getMessage(), "offset", e.getCommittedOffset()));
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, Object>> statusError(ResponseStatusException e) {
+        return ResponseEntity.status(e.getStatusCode())
+                .body(Map.of("error", e.getReason() != null ? e.getReason() : e.getStatusCode().toString()));
+    }
+
+    private static HttpHeaders offsetHeaders(ChunkedUploadService.UploadStatus status) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(UPLOAD_OFFSET, String.valueOf(status.offset()));
+        headers.set(UPLOAD_LENGTH, String.valueOf(status.length()));
+        return headers;
+    }
+}
@@ -1,24 +1,51 @@
 package siwes.project.school_website.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 import siwes.project.school_website.entity.Assignment;
 import siwes.project.school_website.entity.Submission;
 import siwes.project.school_website.entity.User;
+import siwes.project.school_website.repository.KeysetPage;
 import siwes.project.school_website.service.AssignmentService;
+import siwes.project.school_website.service.BulkGradingService;
+import siwes.project.school_website.service.CsvExportService;
+import siwes.project.school_website.service.FileDownloadService;
+import siwes.project.school_website.service.GradeStatisticsService;
+import siwes.project.school_website.service.ImageVariantService;
+import siwes.project.school_website.service.SignedDownloadService;
+import siwes.project.school_website.service.SubmissionBundleService;
 import siwes.project.school_website.service.SubmissionService;
 import siwes.project.school_website.service.UserService;
+import siwes.project.school_website.storage.BlobKeys;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Controller
 @RequestMapping("/lecturer")
@@ -28,46 +55,149 @@ public class LecturerController {
     private final AssignmentService assignmentService;
     private final SubmissionService submissionService;
     private final UserService userService;
+    private final FileDownloadService fileDownloadService;
+    private final ImageVariantService imageVariantService;
+    private final SubmissionBundleService submissionBundleService;
+    private final SignedDownloadService signedDownloadService;
+    private final BulkGradingService bulkGradingService;
+    private final CsvExportService csvExportService;
+    private final GradeStatisticsService gradeStatisticsService;
 
     @GetMapping("/dashboard")
-    public String dashboard(Model model, Principal principal) {
+    public String dashboard(@RequestParam(defaultValue = "0") int page,
+                            @RequestParam(defaultValue = "12") int size,
+                            Model model, Principal principal) {
         String username = principal != null ? principal.getName() : "Lecturer";
-        model.addAttribute("assignments", assignmentService.getAllAssignments());
+        User lecturer = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("Lecturer not found"));
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 50));
+        model.addAttribute("assignments", assignmentService.getLecturerDashboard(lecturer.getId(), pageable));
         model.addAttribute("username", username);
         return "lecturer/dashboard";
     }
 
     @GetMapping("/assignment/{id}/submissions")
-    public String viewSubmissions(@PathVariable Long id, Model model, Principal principal) {
-        Assignment assignment = assignmentService.getAssignmentById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Assignment not found"));
-        
-        // Ownership Protection: Only the creator can view submissions
-        if (!assignment.getCreatedBy().getUsername().equals(principal.getName())) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: You did not create this assignment.");
-        }
+    public String viewSubmissions(@PathVariable Long id,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "50") int size,
+                                  @RequestParam(defaultValue = "false") boolean count,
+                                  Model model, Principal principal) {
+        Assignment assignment = getOwnedAssignment(id, principal);
 
+        int pageSize = Math.min(Math.max(size, 1), 200);
+        KeysetPage<Submission> submissions = submissionService.getSubmissionPage(id, cursor, pageSize, count);
+        Map<Long, String> downloadLinks = new HashMap<>();
+        for (Submission submission : submissions.getContent()) {
+            String link = downloadLink(submission, principal);
+            if (link != null) {
+                downloadLinks.put(submission.getId(), link);
+            }
+        }
         model.addAttribute("assignment", assignment);
-        model.addAttribute("submissions", submissionService.getSubmissionsForAssignment(id));
+        model.addAttribute("submissions", submissions);
+        model.addAttribute("downloadLinks", downloadLinks);
+        model.addAttribute("statistics", gradeStatisticsService.forAssignment(id));
+        model.addAttribute("size", pageSize);
         return "lecturer/assignment-submissions";
     }
 
+    @GetMapping("/assignment/{id}/submissions.zip")
+    public ResponseEntity<ResponseBodyEmitter> downloadSubmissionBundle(@PathVariable Long id, Principal principal) {
+        Assignment assignment = getOwnedAssignment(id, principal);
+        List<SubmissionBundleService.BundleEntry> entries = submissionBundleService.entriesFor(id);
+
+        Optional<ResponseBodyEmitter> bundle = submissionBundleService.stream(entries);
+        if (bundle.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(assignment.getTitle() + " - submissions.zip", StandardCharsets.UTF_8).build().toString())
+                .body(bundle.get());
+    }
+
+    @GetMapping("/assignment/{id}/gradebook")
+    public ResponseEntity<StreamingResponseBody> exportGradebook(@PathVariable Long id,
+                                                                 @RequestParam(defaultValue = "false") boolean gzip,
+                                                                 Principal principal) {
+        return csvExportService.assignmentGradebook(getOwnedAssignment(id, principal), gzip);
+    }
+
+    // Ownership Protection: Only the creator can view submissions
+    private Assignment getOwnedAssignment(Long id, Principal principal) {
+        Assignment assignment = assignmentService.getAssignmentWithOwners(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Assignment not found"));
+        String username = principal.getName();
+        boolean teachesCourse = assignment.getCourse() != null && assignment.getCourse().getLecturer() != null
+                && assignment.getCourse().getLecturer().getUsername().equals(username);
+        if (!assignment.getCreatedBy().getUsername().equals(username) && !teachesCourse) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Denied: You did not create this assignment or teach its course.");
+        }
+        return assignment;
+    }
+
     @GetMapping("/submission/{id}")
-    public String gradeSubmissionView(@PathVariable Long id, Model model) {
+    public String gradeSubmissionView(@PathVariable Long id, Model model, Principal principal) {
         Submission submission = submissionService.getSubmissionById(id);
+        // The page carries a signed download link, so only the assignment's owners may open it
+        getOwnedAssignment(submission.getAssignment().getId(), principal);
         model.addAttribute("submission", submission);
+        model.addAttribute("downloadUrl", downloadLink(submission, principal));
         return "lecturer/grading-view";
     }
 
     @PostMapping("/submission/{id}/grade")
     public String gradeSubmission(@PathVariable Long id, @RequestParam Integer grade, @RequestParam String feedback) {
-        submissionService.gradeSubmission(id, grade, feedback);
-        
+        Submission submission = submissionService.gradeSubmission(id, grade, feedback);
+
         // Redirect back to the assignment's submission list
-        Submission submission = submissionService.getSubmissionById(id);
         return "redirect:/lecturer/assignment/" + submission.getAssignment().getId() + "/submissions?graded";
     }
 
+    @GetMapping("/assignment/{id}/grades")
+    public String bulkGradingView(@PathVariable Long id, Model model, Principal principal) {
+        model.addAttribute("assignment", getOwnedAssignment(id, principal));
+        model.addAttribute("submissions", submissionService.getSubmissionsForAssignment(id));
+        return "lecturer/bulk-grading";
+    }
+
+    @PostMapping("/assignment/{id}/grades")
+    public String bulkGrade(@PathVariable Long id, @RequestParam MultiValueMap<String, String> form,
+                            RedirectAttributes redirectAttributes, Principal principal) {
+        getOwnedAssignment(id, principal);
+        // Read the raw values: binding a single row to List<String> would split feedback on commas
+        List<String> submissionIds = form.getOrDefault("submissionId", List.of());
+        List<String> grades = form.getOrDefault("grade", List.of());
+        List<String> feedback = form.getOrDefault("feedback", List.of());
+        if (grades.size() != submissionIds.size() || feedback.size() != submissionIds.size()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Incomplete grading form");
+        }
+        List<BulkGradingService.GradeRow> rows = new ArrayList<>(submissionIds.size());
+        for (int i = 0; i < submissionIds.size(); i++) {
+            rows.add(new BulkGradingService.GradeRow(i + 1, submissionIds.get(i), grades.get(i), feedback.get(i)));
+        }
+        redirectAttributes.addFlashAttribute("result", bulkGradingService.gradeGrid(id, rows));
+        return "redirect:/lecturer/assignment/" + id + "/grades";
+    }
+
+    @PostMapping("/assignment/{id}/grades/import")
+    public String importGrades(@PathVariable Long id, @RequestParam MultipartFile file,
+                               RedirectAttributes redirectAttributes, Principal principal) throws IOException {
+        getOwnedAssignment(id, principal);
+        if (file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Choose a CSV file to import");
+        }
+        BulkGradingService.Result result;
+        try (InputStream in = file.getInputStream()) {
+            result = bulkGradingService.importCsv(id, in);
+        }
+        redirectAttributes.addFlashAttribute("result", result);
+        return "redirect:/lecturer/assignment/" + id + "/grades";
+    }
+
     @GetMapping("/assignment/create")
     public String createAssignmentForm(Model model) {
         model.addAttribute("assignment", new Assignment());
@@ -87,12 +217,16 @@ public class LecturerController {
     }
 
     @GetMapping("/submission/{id}/download")
-    public ResponseEntity<Resource> downloadSubmission(@PathVariable Long id) {
+    public void downloadSubmission(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
         Submission submission = submissionService.getSubmissionById(id);
         Resource file = submissionService.loadFileAsResource(submission.getSubmissionContent());
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFilename() + "\"")
-                .body(file);
+        fileDownloadService.send(request, response, file, submissionService.contentHash(submission), null,
+                submissionService.downloadFilename(submission, file), "private, no-cache");
+    }
+
+    private String downloadLink(Submission submission, Principal principal) {
+        return signedDownloadService.downloadLink(submission, principal.getName(),
+                "/lecturer/submission/" + submission.getId() + "/download");
     }
 
     @GetMapping("/student/{id}")
@@ -105,11 +239,17 @@ public class LecturerController {
 
     @GetMapping("/profile-pic/{filename}")
     @ResponseBody
-    public ResponseEntity<Resource> getProfilePic(@PathVariable String filename) {
-        Resource file = userService.loadProfilePic(filename);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, "image/jpeg")
-                .body(file);
+    public void getProfilePic(@PathVariable String filename, @RequestParam(required = false) String size,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Profile picture names are unique per upload, so a given URL never changes content
+        if (size != null) {
+            ImageVariantService.VariantImage image = imageVariantService.load(filename, ImageVariantService.Variant.fromParam(size));
+            fileDownloadService.send(request, response, image.resource(), image.contentHash(), image.contentType(), null, ImageVariantService.IMMUTABLE_CACHE);
+        } else {
+            Resource file = userService.loadProfilePic(filename);
+            String contentType = MediaTypeFactory.getMediaType(filename).map(MediaType::toString).orElse(null);
+            fileDownloadService.send(request, response, file, BlobKeys.keyOf(filename), contentType, null, ImageVariantService.IMMUTABLE_CACHE);
+        }
     }
 
     @GetMapping("/profile")
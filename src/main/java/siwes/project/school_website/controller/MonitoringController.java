@@ -0,0 +1,49 @@
+package siwes.project.school_website.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import siwes.project.school_website.config.PooledPasswordEncoder;
+import siwes.project.school_website.config.RateLimitFilter;
+import siwes.project.school_website.service.BlobCompressionService;
+import siwes.project.school_website.service.CustomUserDetailsService;
+import siwes.project.school_website.service.GradeStatisticsService;
+import siwes.project.school_website.service.ReferenceDataService;
+import siwes.project.school_website.service.RememberMeTokenService;
+import siwes.project.school_website.service.StorageMaintenanceService;
+import siwes.project.school_website.service.SubmissionProcessingService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/monitoring")
+@RequiredArgsConstructor
+public class MonitoringController {
+
+    private final PooledPasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
+    private final RememberMeTokenService rememberMeTokenService;
+    private final RateLimitFilter rateLimitFilter;
+    private final SubmissionProcessingService submissionProcessingService;
+    private final StorageMaintenanceService storageMaintenanceService;
+    private final BlobCompressionService blobCompressionService;
+    private final ReferenceDataService referenceDataService;
+    private final GradeStatisticsService gradeStatisticsService;
+
+    @GetMapping
+    public Map<String, Object> overview() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("passwordHashing", passwordEncoder.metrics());
+        stats.put("loginCache", userDetailsService.cacheStats());
+        stats.put("rememberMeCache", rememberMeTokenService.cacheStats());
+        stats.put("referenceDataCache", referenceDataService.cacheStats());
+        stats.put("gradeStatisticsCache", gradeStatisticsService.cacheStats());
+        stats.put("rateLimits", rateLimitFilter.stats());
+        stats.put("submissionProcessingBacklog", submissionProcessingService.pending());
+        stats.put("storageSweep", storageMaintenanceService.lastRun());
+        stats.put("recompression", blobCompressionService.stats());
+        return stats;
+    }
+}
@@ -0,0 +1,52 @@
+package siwes.project.school_website.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.server.ResponseStatusException;
+import siwes.project.school_website.service.BlobService;
+import siwes.project.school_website.service.FileDownloadService;
+import siwes.project.school_website.service.SignedDownloadService;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Serves links issued by {@link SignedDownloadService} straight from the blob store,
+ * without touching the database.
+ */
+@Controller
+@RequiredArgsConstructor
+public class SignedDownloadController {
+
+    private final SignedDownloadService signedDownloadService;
+    private final BlobService blobService;
+    private final FileDownloadService fileDownloadService;
+
+    @GetMapping(SignedDownloadService.PATH + "{token}")
+    public void download(@PathVariable String token, Principal principal,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        SignedDownloadService.DownloadGrant grant = signedDownloadService.verify(token, principal.getName());
+        if (grant == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Download link is invalid or has expired");
+        }
+        Resource file;
+        try {
+            file = blobService.load(grant.key());
+        } catch (RuntimeException e) {
+            // The submission was replaced or deleted after the link was issued
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
+        }
+        // The bytes behind a key never change, so the link may be cached until it expires
+        long maxAge = Math.max(0, Duration.between(Instant.now(), grant.expiresAt()).toSeconds());
+        fileDownloadService.send(request, response, file, grant.key(), null, grant.filename(),
+                "private, max-age=" + maxAge);
+    }
+}
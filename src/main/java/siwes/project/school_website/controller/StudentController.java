@@ -1,9 +1,14 @@
 package siwes.project.school_website.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -13,17 +18,17 @@ import org.springframework.http.HttpStatus;
 import siwes.project.school_website.entity.Assignment;
 import siwes.project.school_website.entity.Submission;
 import siwes.project.school_website.service.AssignmentService;
+import siwes.project.school_website.service.FileDownloadService;
+import siwes.project.school_website.service.ImageVariantService;
+import siwes.project.school_website.service.SignedDownloadService;
 import siwes.project.school_website.service.SubmissionService;
 import siwes.project.school_website.service.UserService;
 import siwes.project.school_website.entity.User;
+import siwes.project.school_website.storage.BlobKeys;
 
 import java.io.IOException;
 import java.security.Principal;
 import java.util.Optional;
-import java.util.List;
-import java.util.Set;
-import java.util.Collections;
-import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/student")
@@ -33,22 +38,21 @@ public class StudentController {
     private final AssignmentService assignmentService;
     private final SubmissionService submissionService;
     private final UserService userService;
+    private final FileDownloadService fileDownloadService;
+    private final ImageVariantService imageVariantService;
+    private final SignedDownloadService signedDownloadService;
 
     @GetMapping("/dashboard")
-    public String dashboard(Model model, Principal principal) {
+    public String dashboard(@RequestParam(defaultValue = "0") int page,
+                            @RequestParam(defaultValue = "12") int size,
+                            Model model, Principal principal) {
         String username = principal != null ? principal.getName() : "Student";
         User user = userService.findByUsername(username).orElse(new User());
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 50));
         if (user.getDepartment() != null) {
-            model.addAttribute("assignments", assignmentService.getAssignmentsByDepartment(user.getDepartment()));
-            
-            List<Submission> submissions = submissionService.getSubmissionsForStudent(user);
-            Set<Long> submittedAssignmentIds = submissions.stream()
-                    .map(s -> s.getAssignment().getId())
-                    .collect(Collectors.toSet());
-            model.addAttribute("submittedAssignmentIds", submittedAssignmentIds);
+            model.addAttribute("assignments", assignmentService.getStudentDashboard(user.getDepartment(), user.getId(), pageable));
         } else {
-            model.addAttribute("assignments", Collections.emptyList());
-            model.addAttribute("submittedAssignmentIds", Collections.emptySet());
+            model.addAttribute("assignments", Page.empty(pageable));
         }
         model.addAttribute("username", username);
         model.addAttribute("user", user);
@@ -66,6 +70,9 @@ public class StudentController {
 
         model.addAttribute("assignment", assignment);
         model.addAttribute("submission", submission.orElse(null));
+        model.addAttribute("downloadUrl", submission
+                .map(s -> signedDownloadService.downloadLink(s, username, "/student/submission/" + s.getId() + "/download"))
+                .orElse(null));
 
         return "student/assignment-view";
     }
@@ -87,16 +94,16 @@ public class StudentController {
     }
 
     @GetMapping("/submission/{id}/download")
-    public ResponseEntity<Resource> downloadSubmission(@PathVariable Long id, Principal principal) {
+    public void downloadSubmission(@PathVariable Long id, Principal principal,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
         Submission submission = submissionService.getSubmissionById(id);
         String username = principal != null ? principal.getName() : "";
         if (!submission.getStudent().getUsername().equals(username)) {
             throw new IllegalArgumentException("Access Denied");
         }
         Resource file = submissionService.loadFileAsResource(submission.getSubmissionContent());
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFilename() + "\"")
-                .body(file);
+        fileDownloadService.send(request, response, file, submissionService.contentHash(submission), null,
+                submissionService.downloadFilename(submission, file), "private, no-cache");
     }
 
     @GetMapping("/profile")
@@ -137,10 +144,16 @@ public class StudentController {
 
     @GetMapping("/profile-pic/{filename}")
     @ResponseBody
-    public ResponseEntity<Resource> getProfilePic(@PathVariable String filename) {
-        Resource file = userService.loadProfilePic(filename);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, "image/jpeg")
-                .body(file);
+    public void getProfilePic(@PathVariable String filename, @RequestParam(required = false) String size,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Profile picture names are unique per upload, so a given URL never changes content
+        if (size != null) {
+            ImageVariantService.VariantImage image = imageVariantService.load(filename, ImageVariantService.Variant.fromParam(size));
+            fileDownloadService.send(request, response, image.resource(), image.contentHash(), image.contentType(), null, ImageVariantService.IMMUTABLE_CACHE);
+        } else {
+            Resource file = userService.loadProfilePic(filename);
+            String contentType = MediaTypeFactory.getMediaType(filename).map(MediaType::toString).orElse(null);
+            fileDownloadService.send(request, response, file, BlobKeys.keyOf(filename), contentType, null, ImageVariantService.IMMUTABLE_CACHE);
+        }
     }
 }
\ No newline at end of file
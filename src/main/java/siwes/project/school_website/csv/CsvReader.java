@@ -0,0 +1,113 @@
+package siwes.project.school_website.csv;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 4180 record reader: comma separated fields, double-quoted fields may contain commas,
+ * line breaks and doubled quotes. Accepts LF or CRLF line endings and a leading byte order
+ * mark, as written by spreadsheet exports.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int NONE = -2;
+
+    private final Reader in;
+    private final StringBuilder field = new StringBuilder();
+    private int pushedBack = NONE;
+    private boolean started;
+
+    public CsvReader(Reader in) {
+        this.in = in instanceof BufferedReader ? in : new BufferedReader(in);
+    }
+
+    /**
+     * Removes the apostrophe {@link CsvWriter} puts in front of text a spreadsheet would
+     * otherwise run as a formula.
+     */
+    public static String unguarded(String value) {
+        if (value.length() > 1 && value.charAt(0) == '\'' && CsvWriter.isFormulaStart(value.charAt(1))) {
+            return value.substring(1);
+        }
+        return value;
+    }
+
+    /**
+     * @return the fields of the next record, or {@code null} at the end of the input.
+     *         A blank line is a record with one empty field.
+     * @throws MalformedCsvException when a quoted field is not closed
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = read();
+            }
+        }
+        if (c == -1) {
+            return null;
+        }
+        List<String> record = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new MalformedCsvException("Quoted field is not closed");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following != '"') {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pushedBack = following;
+                    }
+                }
+                record.add(field.toString());
+                return record;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != NONE) {
+            int c = pushedBack;
+            pushedBack = NONE;
+            return c;
+        }
+        return in.read();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    public static class MalformedCsvException extends IOException {
+
+        public MalformedCsvException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package siwes.project.school_website.csv;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * RFC 4180 record writer, the counterpart of {@link CsvReader}. Fields are scanned once and
+ * written straight to the underlying writer; a field is quoted only when it contains a
+ * comma, quote or line break, and no intermediate strings are built for escaping or for
+ * numbers. Records end with CRLF. Callers supply the buffering.
+ */
+public class CsvWriter implements Closeable, Flushable {
+
+    private final Writer out;
+    private final char[] digits = new char[20];
+    private boolean firstField = true;
+
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a field; {@code null} becomes an empty field. Text a spreadsheet would run as a
+     * formula gets a leading apostrophe, which {@link CsvReader#unguarded} strips on import.
+     */
+    public CsvWriter field(String value) throws IOException {
+        separate();
+        if (value == null) {
+            return this;
+        }
+        int length = value.length();
+        boolean guard = length > 0 && isFormulaStart(value.charAt(0));
+        boolean quote = false;
+        for (int i = 0; i < length && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            if (guard) {
+                out.write('\'');
+            }
+            out.write(value, 0, length);
+            return this;
+        }
+        out.write('"');
+        if (guard) {
+            out.write('\'');
+        }
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) == '"') {
+                // Write up to and including the quote, then double it
+                out.write(value, start, i + 1 - start);
+                out.write('"');
+                start = i + 1;
+            }
+        }
+        out.write(value, start, length - start);
+        out.write('"');
+        return this;
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        separate();
+        int position = digits.length;
+        long remaining = value;
+        do {
+            digits[--position] = (char) ('0' + Math.abs(remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            digits[--position] = '-';
+        }
+        out.write(digits, position, digits.length - position);
+        return this;
+    }
+
+    /**
+     * Writes a number, or an empty field for {@code null}.
+     */
+    public CsvWriter field(Integer value) throws IOException {
+        if (value == null) {
+            separate();
+            return this;
+        }
+        return field(value.longValue());
+    }
+
+    public CsvWriter record(String... values) throws IOException {
+        for (String value : values) {
+            field(value);
+        }
+        return endRecord();
+    }
+
+    public CsvWriter endRecord() throws IOException {
+        out.write("\r\n");
+        firstField = true;
+        return this;
+    }
+
+    static boolean isFormulaStart(char c) {
+        return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+    }
+
+    private void separate() throws IOException {
+        if (firstField) {
+            firstField = false;
+        } else {
+            out.write(',');
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
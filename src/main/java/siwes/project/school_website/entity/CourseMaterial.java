@@ -18,7 +18,7 @@ public class CourseMaterial {
     private String originalFileName;
     private LocalDateTime uploadDate;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id")
     private Course course;
 }
\ No newline at end of file
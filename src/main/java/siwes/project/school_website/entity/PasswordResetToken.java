@@ -0,0 +1,32 @@
+package siwes.project.school_website.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "password_reset_token", indexes = {
+        @Index(name = "idx_password_reset_token_user", columnList = "user_id"),
+        @Index(name = "idx_password_reset_token_expires_at", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+public class PasswordResetToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Hex SHA-256 of the emailed token; the raw token itself is never stored.
+    @Column(nullable = false, unique = true, length = 64, columnDefinition = "CHAR(64)")
+    private String tokenHash;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
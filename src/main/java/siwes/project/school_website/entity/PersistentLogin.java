@@ -0,0 +1,32 @@
+package siwes.project.school_website.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "persistent_logins", indexes = {
+        @Index(name = "idx_persistent_logins_username", columnList = "username"),
+        @Index(name = "idx_persistent_logins_last_used", columnList = "lastUsed")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PersistentLogin {
+
+    @Id
+    @Column(length = 64)
+    private String series;
+
+    @Column(nullable = false, length = 64)
+    private String username;
+
+    @Column(nullable = false, length = 64)
+    private String token;
+
+    @Column(nullable = false)
+    private LocalDateTime lastUsed;
+}
@@ -0,0 +1,34 @@
+package siwes.project.school_website.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "stored_blob")
+@Data
+@NoArgsConstructor
+public class StoredBlob {
+
+    // Hex SHA-256 of the content
+    @Id
+    @Column(name = "blob_key", length = 64, columnDefinition = "CHAR(64)")
+    private String key;
+
+    // Original (uncompressed) size
+    private long size;
+
+    // null until checked for compression, then "gzip" or "identity" (see BlobCodec)
+    @Column(length = 16)
+    private String codec;
+
+    // Bytes actually on disk
+    private Long storedSize;
+
+    // Number of rows (submissions, profiles) pointing at this blob
+    private int refCount;
+
+    private LocalDateTime createdAt;
+}
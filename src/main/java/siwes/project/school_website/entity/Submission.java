@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Data
 @NoArgsConstructor
@@ -15,16 +17,29 @@ public class Submission {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id", nullable = false)
     private User student;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "assignment_id", nullable = false)
     private Assignment assignment;
 
     @Column(columnDefinition = "TEXT")
-    private String submissionContent; // Text or Link
+    private String submissionContent; // Blob key (legacy rows: stored file name)
+
+    private String originalFilename;
+
+    // Filled in by the post-upload pipeline; null on rows that predate it
+    @Enumerated(EnumType.STRING)
+    private SubmissionStatus status;
+
+    private LocalDateTime submittedAt;
+    private LocalDateTime processedAt;
+    private Long fileSize;
+    private String detectedType;
+    private Integer pageCount;
+    private String rejectionReason;
 
     private Integer grade; // 0 - 100
 
@@ -44,6 +59,30 @@ public class Submission {
     public String getSubmissionContent() { return submissionContent; }
     public void setSubmissionContent(String submissionContent) { this.submissionContent = submissionContent; }
 
+    public String getOriginalFilename() { return originalFilename; }
+    public void setOriginalFilename(String originalFilename) { this.originalFilename = originalFilename; }
+
+    public SubmissionStatus getStatus() { return status; }
+    public void setStatus(SubmissionStatus status) { this.status = status; }
+
+    public LocalDateTime getSubmittedAt() { return submittedAt; }
+    public void setSubmittedAt(LocalDateTime submittedAt) { this.submittedAt = submittedAt; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+
+    public String getDetectedType() { return detectedType; }
+    public void setDetectedType(String detectedType) { this.detectedType = detectedType; }
+
+    public Integer getPageCount() { return pageCount; }
+    public void setPageCount(Integer pageCount) { this.pageCount = pageCount; }
+
+    public String getRejectionReason() { return rejectionReason; }
+    public void setRejectionReason(String rejectionReason) { this.rejectionReason = rejectionReason; }
+
     public Integer getGrade() { return grade; }
     public void setGrade(Integer grade) { this.grade = grade; }
 
@@ -0,0 +1,5 @@
+package siwes.project.school_website.entity;
+
+public enum SubmissionStatus {
+    PROCESSING, ACCEPTED, REJECTED
+}
@@ -0,0 +1,44 @@
+package siwes.project.school_website.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resumable upload in progress. The bytes received so far live in a partial file;
+ * its length is the committed offset.
+ */
+@Entity
+@Table(name = "upload_session", indexes = {
+        @Index(name = "idx_upload_session_last_activity", columnList = "lastActivity")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    @Id
+    @Column(length = 32)
+    private String id;
+
+    @Column(nullable = false, length = 64)
+    private String username;
+
+    @Column(nullable = false)
+    private Long assignmentId;
+
+    @Column(nullable = false)
+    private String originalFilename;
+
+    @Column(nullable = false)
+    private Long totalSize;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime lastActivity;
+}
@@ -5,10 +5,11 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.time.LocalDateTime;
-
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_email", columnList = "email"),
+        @Index(name = "idx_users_phone_number", columnList = "phoneNumber")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,9 +43,6 @@ public class User {
     private String phoneNumber;
     private String matricNumber;
 
-    private String resetPasswordToken;
-    private LocalDateTime resetPasswordTokenExpiry;
-
     @Transient
     private String adminCode;
 
@@ -85,12 +83,6 @@ public class User {
     public String getMatricNumber() { return matricNumber; }
     public void setMatricNumber(String matricNumber) { this.matricNumber = matricNumber; }
 
-    public String getResetPasswordToken() { return resetPasswordToken; }
-    public void setResetPasswordToken(String resetPasswordToken) { this.resetPasswordToken = resetPasswordToken; }
-
-    public LocalDateTime getResetPasswordTokenExpiry() { return resetPasswordTokenExpiry; }
-    public void setResetPasswordTokenExpiry(LocalDateTime resetPasswordTokenExpiry) { this.resetPasswordTokenExpiry = resetPasswordTokenExpiry; }
-
     public String getAdminCode() { return adminCode; }
     public void setAdminCode(String adminCode) { this.adminCode = adminCode; }
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package siwes.project.school_website.exception;
 
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 @ControllerAdvice
@@ -14,6 +18,14 @@ public class GlobalExceptionHandler {
         return "error";
     }
 
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String handleBusy(PasswordHashingBusyException exc, HttpServletResponse response, Model model) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+        model.addAttribute("errorMessage", exc.getMessage());
+        return "error";
+    }
+
     @ExceptionHandler(Exception.class)
     public String handleException(Exception e, Model model) {
         model.addAttribute("errorMessage", e.getMessage());
@@ -0,0 +1,13 @@
+package siwes.project.school_website.exception;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Thrown when the password hashing pool is saturated and the caller should retry later.
+ */
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
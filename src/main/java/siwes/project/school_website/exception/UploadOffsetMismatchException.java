@@ -0,0 +1,19 @@
+package siwes.project.school_website.exception;
+
+/**
+ * A chunk did not start at the committed offset, or an upload was finished before all of
+ * it arrived. The client should re-read the offset and resume from there.
+ */
+public class UploadOffsetMismatchException extends RuntimeException {
+
+    private final long committedOffset;
+
+    public UploadOffsetMismatchException(long committedOffset) {
+        super("Upload offset mismatch; committed offset is " + committedOffset);
+        this.committedOffset = committedOffset;
+    }
+
+    public long getCommittedOffset() {
+        return committedOffset;
+    }
+}
@@ -0,0 +1,18 @@
+package siwes.project.school_website.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One line of the admin assignment overview. Filled by a constructor expression in {@link AssignmentRepository}.
+ */
+@Getter
+@AllArgsConstructor
+public class AdminAssignmentRow {
+
+    private final Long id;
+    private final String title;
+    private final String description;
+    private final String createdByName;
+    private final String departmentName;
+}
@@ -0,0 +1,19 @@
+package siwes.project.school_website.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One line of the admin course table. Filled by a constructor expression in {@link CourseRepository}.
+ */
+@Getter
+@AllArgsConstructor
+public class AdminCourseRow {
+
+    private final Long id;
+    private final String courseCode;
+    private final String name;
+    private final Integer creditUnits;
+    private final String departmentName;
+    private final String lecturerName;
+}
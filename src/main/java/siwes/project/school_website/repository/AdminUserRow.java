@@ -0,0 +1,19 @@
+package siwes.project.school_website.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import siwes.project.school_website.entity.Role;
+
+/**
+ * One line of the admin user table. Filled by a constructor expression in {@link UserRepository}.
+ */
+@Getter
+@AllArgsConstructor
+public class AdminUserRow {
+
+    private final Long id;
+    private final String username;
+    private final String fullName;
+    private final String email;
+    private final Role role;
+}
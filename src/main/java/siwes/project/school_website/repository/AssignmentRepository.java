@@ -1,9 +1,16 @@
 package siwes.project.school_website.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import siwes.project.school_website.entity.Assignment;
 import siwes.project.school_website.entity.Department;
 import java.util.List;
+import java.util.Optional;
 
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     
@@ -12,4 +19,36 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
 
     // Fetch assignments for a specific course
     List<Assignment> findByCourseId(Long courseId);
-}
\ No newline at end of file
+
+    // Ownership checks need the creator and the course lecturer
+    @EntityGraph(attributePaths = {"createdBy", "course", "course.lecturer"})
+    Optional<Assignment> findWithOwnersById(Long id);
+
+    // Student dashboard: department assignments with the student's submission state, soonest due first
+    @Query(value = "SELECT new siwes.project.school_website.repository.StudentAssignmentRow(a.id, a.title, a.dueDate, c.name, s.id, s.grade) " +
+            "FROM Assignment a JOIN a.course c " +
+            "LEFT JOIN Submission s ON s.assignment = a AND s.student.id = :studentId " +
+            "WHERE c.department.id = :departmentId " +
+            "ORDER BY a.dueDate ASC, a.id ASC",
+            countQuery = "SELECT COUNT(a) FROM Assignment a WHERE a.course.department.id = :departmentId")
+    Page<StudentAssignmentRow> findStudentDashboardRows(@Param("departmentId") Long departmentId,
+                                                        @Param("studentId") Long studentId,
+                                                        Pageable pageable);
+
+    // Keyset listing, newest first; start from beforeId = Long.MAX_VALUE
+    @Query("SELECT new siwes.project.school_website.repository.AdminAssignmentRow(a.id, a.title, a.description, u.fullName, d.name) " +
+            "FROM Assignment a LEFT JOIN a.createdBy u LEFT JOIN a.department d WHERE a.id < :beforeId ORDER BY a.id DESC")
+    Slice<AdminAssignmentRow> findAdminRowsBefore(@Param("beforeId") long beforeId, Pageable pageable);
+
+    // Lecturer dashboard: assignments the lecturer created or whose course they teach, with submission counts
+    @Query(value = "SELECT new siwes.project.school_website.repository.LecturerAssignmentRow(a.id, a.title, a.dueDate, c.name, " +
+            "CASE WHEN a.createdBy.id = :lecturerId THEN true ELSE false END, " +
+            "COUNT(s.id), SUM(CASE WHEN s.grade IS NOT NULL THEN 1 ELSE 0 END)) " +
+            "FROM Assignment a LEFT JOIN a.course c LEFT JOIN Submission s ON s.assignment = a " +
+            "WHERE a.createdBy.id = :lecturerId OR c.lecturer.id = :lecturerId " +
+            "GROUP BY a.id, a.title, a.dueDate, c.name, a.createdBy.id " +
+            "ORDER BY a.dueDate DESC, a.id DESC",
+            countQuery = "SELECT COUNT(a) FROM Assignment a LEFT JOIN a.course c " +
+                    "WHERE a.createdBy.id = :lecturerId OR c.lecturer.id = :lecturerId")
+    Page<LecturerAssignmentRow> findLecturerDashboardRows(@Param("lecturerId") Long lecturerId, Pageable pageable);
+}
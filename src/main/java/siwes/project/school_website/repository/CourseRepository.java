@@ -1,7 +1,22 @@
 package siwes.project.school_website.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import siwes.project.school_website.entity.Course;
 
+import java.util.Optional;
+
 public interface CourseRepository extends JpaRepository<Course, Long> {
-}
\ No newline at end of file
+
+    // Course details page
+    @EntityGraph(attributePaths = {"department", "lecturer"})
+    Optional<Course> findWithDepartmentAndLecturerById(Long id);
+
+    @Query(value = "SELECT new siwes.project.school_website.repository.AdminCourseRow(c.id, c.courseCode, c.name, c.creditUnits, d.name, l.fullName) " +
+            "FROM Course c JOIN c.department d LEFT JOIN c.lecturer l ORDER BY c.courseCode ASC, c.id ASC",
+            countQuery = "SELECT COUNT(c) FROM Course c")
+    Page<AdminCourseRow> findAdminRows(Pageable pageable);
+}
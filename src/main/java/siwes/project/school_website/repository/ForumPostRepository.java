@@ -1,10 +1,12 @@
 package siwes.project.school_website.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import siwes.project.school_website.entity.Course;
 import siwes.project.school_website.entity.ForumPost;
 import java.util.List;
 
 public interface ForumPostRepository extends JpaRepository<ForumPost, Long> {
+    @EntityGraph(attributePaths = "author")
     List<ForumPost> findByCourseOrderByTimestampDesc(Course course);
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package siwes.project.school_website.repository;
+
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (seek) listing. Rows are ordered by {@code (sortKey, id)} and the
+ * next page starts strictly after the last row of this one, so any page costs the same
+ * index range scan as the first. Cursors are opaque to clients.
+ */
+@Getter
+public class KeysetPage<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+    private final Long totalElements;
+
+    private KeysetPage(List<T> content, String nextCursor, Long totalElements) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.totalElements = totalElements;
+    }
+
+    /**
+     * @param total only when the caller asked for it; computing it costs a count query
+     */
+    public static <T> KeysetPage<T> of(Slice<T> slice, Function<T, Object> sortKey, Function<T, Long> id, Long total) {
+        List<T> content = slice.getContent();
+        String next = null;
+        if (slice.hasNext() && !content.isEmpty()) {
+            T last = content.get(content.size() - 1);
+            next = Cursor.encode(String.valueOf(sortKey.apply(last)), id.apply(last));
+        }
+        return new KeysetPage<>(content, next, total);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean isEmpty() {
+        return content.isEmpty();
+    }
+
+    /**
+     * Position after the last row of a page. Callers start from a sentinel that sorts
+     * before every row (such as {@code ""} with id 0) instead of passing nulls.
+     */
+    public record Cursor(String sortKey, long id) {
+
+        public static String encode(String sortKey, long id) {
+            String raw = id + ":" + sortKey;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @return {@code first} when there is no cursor
+         */
+        public static Cursor decode(String cursor, Cursor first) {
+            if (cursor == null || cursor.isEmpty()) {
+                return first;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int colon = raw.indexOf(':');
+                return new Cursor(raw.substring(colon + 1), Long.parseLong(raw.substring(0, colon)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package siwes.project.school_website.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * One assignment on the lecturer dashboard with its submission counts, aggregated by the
+ * grouped query in {@link AssignmentRepository}.
+ */
+@Getter
+@AllArgsConstructor
+public class LecturerAssignmentRow {
+
+    private final Long id;
+    private final String title;
+    private final LocalDate dueDate;
+    private final String courseName;
+    private final boolean createdByMe;
+    private final long submitted;
+    private final long graded;
+
+    public long getPending() {
+        return submitted - graded;
+    }
+}
@@ -0,0 +1,29 @@
+package siwes.project.school_website.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import siwes.project.school_website.entity.PasswordResetToken;
+import siwes.project.school_website.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
+
+    @Query("SELECT t.user FROM PasswordResetToken t WHERE t.tokenHash = :tokenHash AND t.expiresAt > :now")
+    Optional<User> findUserByValidToken(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PasswordResetToken t WHERE t.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM password_reset_token WHERE id IN " +
+            "(SELECT id FROM password_reset_token WHERE expires_at < :cutoff LIMIT :batchSize)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+}
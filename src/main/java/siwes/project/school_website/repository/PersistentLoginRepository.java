@@ -0,0 +1,30 @@
+package siwes.project.school_website.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import siwes.project.school_website.entity.PersistentLogin;
+
+import java.time.LocalDateTime;
+
+public interface PersistentLoginRepository extends JpaRepository<PersistentLogin, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PersistentLogin p SET p.token = :token, p.lastUsed = :lastUsed WHERE p.series = :series")
+    int updateToken(@Param("series") String series, @Param("token") String token, @Param("lastUsed") LocalDateTime lastUsed);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PersistentLogin p WHERE p.username = :username")
+    int deleteByUsername(@Param("username") String username);
+
+    // Bounded batch so a large backlog of stale tokens never holds one long-running lock.
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM persistent_logins WHERE series IN " +
+            "(SELECT series FROM persistent_logins WHERE last_used < :cutoff LIMIT :batchSize)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+}
@@ -0,0 +1,41 @@
+package siwes.project.school_website.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import siwes.project.school_website.entity.StoredBlob;
+
+import java.util.List;
+
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + 1 WHERE b.key = :key")
+    int incrementRefCount(@Param("key") String key);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1 WHERE b.key = :key AND b.refCount > 0")
+    int decrementRefCount(@Param("key") String key);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredBlob b WHERE b.key = :key AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("key") String key);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.codec = :codec, b.storedSize = :storedSize WHERE b.key = :key")
+    int updateCodec(@Param("key") String key, @Param("codec") String codec, @Param("storedSize") long storedSize);
+
+    // Blobs stored before compression existed, oldest first
+    @Query(value = "SELECT blob_key FROM stored_blob WHERE codec IS NULL AND size >= :minSize " +
+            "ORDER BY created_at LIMIT :batchSize", nativeQuery = true)
+    List<String> findUncheckedForCompression(@Param("minSize") long minSize, @Param("batchSize") int batchSize);
+
+    @Query("SELECT b.key FROM StoredBlob b")
+    List<String> findAllKeys();
+}
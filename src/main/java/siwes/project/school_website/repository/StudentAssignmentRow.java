@@ -0,0 +1,30 @@
+package siwes.project.school_website.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * One assignment on the student dashboard, with the student's own submission state.
+ * Filled by a constructor expression in {@link AssignmentRepository}.
+ */
+@Getter
+@AllArgsConstructor
+public class StudentAssignmentRow {
+
+    private final Long id;
+    private final String title;
+    private final LocalDate dueDate;
+    private final String courseName;
+    private final Long submissionId;
+    private final Integer grade;
+
+    public boolean isSubmitted() {
+        return submissionId != null;
+    }
+
+    public boolean isGraded() {
+        return grade != null;
+    }
+}
@@ -1,15 +1,57 @@
 package siwes.project.school_website.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import siwes.project.school_website.entity.Assignment;
 import siwes.project.school_website.entity.Submission;
+import siwes.project.school_website.entity.SubmissionStatus;
 import siwes.project.school_website.entity.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     Optional<Submission> findByStudentAndAssignment(User student, Assignment assignment);
+    // ZIP bundles name entries after the student
+    @EntityGraph(attributePaths = "student")
     List<Submission> findByAssignment(Assignment assignment);
     List<Submission> findByStudent(User student);
+    long countByAssignmentId(Long assignmentId);
+
+    // Grading view and downloads
+    @EntityGraph(attributePaths = {"student", "assignment"})
+    Optional<Submission> findWithStudentAndAssignmentById(Long id);
+
+    // Keyset listing ordered by id; start from afterId = 0. The submissions list shows each student.
+    @EntityGraph(attributePaths = {"student", "student.department"})
+    @Query("SELECT s FROM Submission s WHERE s.assignment.id = :assignmentId AND s.id > :afterId ORDER BY s.id ASC")
+    Slice<Submission> findByAssignmentAfter(@Param("assignmentId") Long assignmentId,
+                                            @Param("afterId") long afterId,
+                                            Pageable pageable);
+
+    // Single grade edits; the previous grade guard makes the first a compare-and-set, as in bulk grading
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.grade = :grade, s.feedback = :feedback WHERE s.id = :id " +
+            "AND (s.grade = :previous OR (s.grade IS NULL AND :previous IS NULL))")
+    int updateGradeIfUnchanged(@Param("id") Long id, @Param("previous") Integer previous,
+                               @Param("grade") Integer grade, @Param("feedback") String feedback);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.grade = :grade, s.feedback = :feedback WHERE s.id = :id")
+    int updateGrade(@Param("id") Long id, @Param("grade") Integer grade, @Param("feedback") String feedback);
+
+    @Query("SELECT s.submissionContent FROM Submission s WHERE s.submissionContent IS NOT NULL")
+    List<String> findAllStoredFileNames();
+
+    @Query("SELECT s.id, s.submissionContent FROM Submission s WHERE s.status = :status AND s.submittedAt < :cutoff")
+    List<Object[]> findPendingProcessing(@Param("status") SubmissionStatus status, @Param("cutoff") LocalDateTime cutoff);
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package siwes.project.school_website.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import siwes.project.school_website.entity.UploadSession;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession u SET u.lastActivity = :now WHERE u.id = :id")
+    int touch(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT id FROM upload_session WHERE last_activity < :cutoff LIMIT :batchSize", nativeQuery = true)
+    List<String> findIdleIds(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+}
@@ -2,7 +2,10 @@ package siwes.project.school_website.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import siwes.project.school_website.entity.User;
 import siwes.project.school_website.entity.Role;
 import siwes.project.school_website.entity.Department;
@@ -14,10 +17,34 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     Optional<User> findByPhoneNumber(String phoneNumber);
+
+    // Resolves a login by username, email or phone number in a single round trip.
+    // Several rows can match when one user's email is another's username, so the caller picks by priority.
+    @Query("SELECT u FROM User u WHERE u.username = :login OR u.email = :login OR u.phoneNumber = :login")
+    List<User> findByLoginIdentifier(@Param("login") String login);
+
     Optional<User> findByMatricNumber(String matricNumber);
-    Optional<User> findByResetPasswordToken(String token);
     List<User> findByRole(Role role);
     Page<User> findByRole(Role role, Pageable pageable);
     long countByRole(Role role);
     List<User> findByDepartmentAndRole(Department department, Role role);
+
+    // Keyset listings ordered by (username, id); start from afterUsername = "" and afterId = 0
+    @Query("SELECT new siwes.project.school_website.repository.AdminUserRow(u.id, u.username, u.fullName, u.email, u.role) " +
+            "FROM User u WHERE u.username > :afterUsername OR (u.username = :afterUsername AND u.id > :afterId) " +
+            "ORDER BY u.username ASC, u.id ASC")
+    Slice<AdminUserRow> findAdminRowsAfter(@Param("afterUsername") String afterUsername,
+                                           @Param("afterId") long afterId,
+                                           Pageable pageable);
+
+    @Query("SELECT new siwes.project.school_website.repository.AdminUserRow(u.id, u.username, u.fullName, u.email, u.role) " +
+            "FROM User u WHERE u.role = :role AND (u.username > :afterUsername OR (u.username = :afterUsername AND u.id > :afterId)) " +
+            "ORDER BY u.username ASC, u.id ASC")
+    Slice<AdminUserRow> findAdminRowsByRoleAfter(@Param("role") Role role,
+                                                 @Param("afterUsername") String afterUsername,
+                                                 @Param("afterId") long afterId,
+                                                 Pageable pageable);
+
+    @Query("SELECT u.profilePic FROM User u WHERE u.profilePic IS NOT NULL")
+    List<String> findAllProfilePics();
 }
\ No newline at end of file
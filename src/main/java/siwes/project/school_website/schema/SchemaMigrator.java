@@ -0,0 +1,142 @@
+package siwes.project.school_website.schema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies versioned SQL scripts ({@code V<n>__<description>.sql}) that Hibernate's schema
+ * update cannot express: composite, partial and unique indexes. Each script runs once,
+ * in its own transaction, and is recorded in {@code schema_migration} with a checksum.
+ * The table lock makes concurrent starts of several instances apply each script once.
+ */
+public class SchemaMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private final DataSource dataSource;
+    private final String location;
+
+    record Migration(int version, String description, Resource script, String checksum) {
+    }
+
+    public SchemaMigrator(DataSource dataSource, String location) {
+        this.dataSource = dataSource;
+        this.location = location;
+    }
+
+    public void migrate() throws IOException, SQLException {
+        List<Migration> migrations = discover();
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS schema_migration (" +
+                        "version INTEGER PRIMARY KEY, description VARCHAR(200) NOT NULL, " +
+                        "checksum VARCHAR(64) NOT NULL, applied_at TIMESTAMP NOT NULL)");
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (Migration migration : migrations) {
+                    apply(connection, migration);
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LOCK TABLE schema_migration IN SHARE ROW EXCLUSIVE MODE");
+            }
+            String applied = appliedChecksums(connection).get(migration.version());
+            if (applied != null) {
+                if (!applied.equals(migration.checksum())) {
+                    log.warn("Schema migration V{} was changed after it was applied; edits to applied scripts are not re-run",
+                            migration.version());
+                }
+                connection.commit();
+                return;
+            }
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(migration.script(), StandardCharsets.UTF_8));
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO schema_migration (version, description, checksum, applied_at) VALUES (?, ?, ?, ?)")) {
+                insert.setInt(1, migration.version());
+                insert.setString(2, migration.description());
+                insert.setString(3, migration.checksum());
+                insert.setTimestamp(4, Timestamp.from(Instant.now()));
+                insert.executeUpdate();
+            }
+            connection.commit();
+            log.info("Applied schema migration V{} ({})", migration.version(), migration.description());
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    private static Map<Integer, String> appliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT version, checksum FROM schema_migration")) {
+            while (rows.next()) {
+                applied.put(rows.getInt(1), rows.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    List<Migration> discover() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        for (Resource script : new PathMatchingResourcePatternResolver().getResources(location + "/V*__*.sql")) {
+            Matcher matcher = SCRIPT_NAME.matcher(script.getFilename());
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Unexpected migration script name: " + script.getFilename());
+            }
+            migrations.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '),
+                    script, checksum(script)));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                throw new IllegalStateException("Duplicate schema migration version V" + migrations.get(i).version());
+            }
+        }
+        return migrations;
+    }
+
+    private static String checksum(Resource script) throws IOException {
+        try (InputStream in = script.getInputStream()) {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(in.readAllBytes()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
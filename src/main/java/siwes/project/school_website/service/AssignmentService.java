@@ -1,9 +1,13 @@
 package siwes.project.school_website.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import siwes.project.school_website.entity.Assignment;
 import siwes.project.school_website.repository.AssignmentRepository;
+import siwes.project.school_website.repository.LecturerAssignmentRow;
+import siwes.project.school_website.repository.StudentAssignmentRow;
 import siwes.project.school_website.entity.Department;
 
 import java.util.List;
@@ -14,15 +18,20 @@ import java.util.Optional;
 public class AssignmentService {
 
     private final AssignmentRepository assignmentRepository;
-
-    public List<Assignment> getAllAssignments() {
-        return assignmentRepository.findAll();
-    }
+    private final GradeStatisticsService gradeStatisticsService;
 
     public List<Assignment> getAssignmentsByDepartment(Department department) {
         return assignmentRepository.findByCourse_Department(department);
     }
 
+    public Page<LecturerAssignmentRow> getLecturerDashboard(Long lecturerId, Pageable pageable) {
+        return assignmentRepository.findLecturerDashboardRows(lecturerId, pageable);
+    }
+
+    public Page<StudentAssignmentRow> getStudentDashboard(Department department, Long studentId, Pageable pageable) {
+        return assignmentRepository.findStudentDashboardRows(department.getId(), studentId, pageable);
+    }
+
     @SuppressWarnings("null")
     public void createAssignment(Assignment assignment) {
         assignmentRepository.save(assignment);
@@ -34,8 +43,13 @@ public class AssignmentService {
         return result;
     }
 
+    public Optional<Assignment> getAssignmentWithOwners(Long id) {
+        return assignmentRepository.findWithOwnersById(id);
+    }
+
     @SuppressWarnings("null")
     public void deleteAssignment(Long id) {
         assignmentRepository.deleteById(id);
+        gradeStatisticsService.invalidate();
     }
 }
@@ -0,0 +1,83 @@
+package siwes.project.school_website.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import siwes.project.school_website.repository.StoredBlobRepository;
+import siwes.project.school_website.storage.BlobCodec;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Works through blobs stored before compression was switched on, a small batch per run
+ * with a pause after each blob, and compresses the ones where it pays off.
+ */
+@Service
+public class BlobCompressionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobCompressionService.class);
+
+    private final BlobService blobService;
+    private final StoredBlobRepository storedBlobRepository;
+    private final boolean enabled;
+    private final long minSize;
+    private final int batchSize;
+    private final Duration pause;
+
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong compressed = new AtomicLong();
+
+    public record Stats(long checked, long compressed) {
+    }
+
+    public BlobCompressionService(BlobService blobService,
+                                  StoredBlobRepository storedBlobRepository,
+                                  @Value("${storage.compression.enabled:true}") boolean enabled,
+                                  @Value("${storage.compression.min-size:4096}") long minSize,
+                                  @Value("${storage.compression.recompress-batch-size:100}") int batchSize,
+                                  @Value("${storage.compression.recompress-pause:PT0.5S}") Duration pause) {
+        this.blobService = blobService;
+        this.storedBlobRepository = storedBlobRepository;
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @Scheduled(initialDelayString = "${storage.compression.recompress-initial-delay:PT10M}",
+            fixedDelayString = "${storage.compression.recompress-interval:PT10M}")
+    public void recompressExisting() {
+        if (!enabled) {
+            return;
+        }
+        List<String> keys = storedBlobRepository.findUncheckedForCompression(minSize, batchSize);
+        for (String key : keys) {
+            try {
+                if (BlobCodec.GZIP.equals(blobService.recompress(key))) {
+                    compressed.incrementAndGet();
+                }
+            } catch (IOException | RuntimeException e) {
+                // Recorded as checked so one unreadable blob does not stall every later batch
+                log.warn("Could not recompress blob {}: {}", key, e.getMessage());
+                storedBlobRepository.findById(key)
+                        .ifPresent(blob -> storedBlobRepository.updateCodec(key, BlobCodec.IDENTITY, blob.getSize()));
+            }
+            checked.incrementAndGet();
+            try {
+                Thread.sleep(pause.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(checked.get(), compressed.get());
+    }
+}
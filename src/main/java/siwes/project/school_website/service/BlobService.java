@@ -0,0 +1,206 @@
+package siwes.project.school_website.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import siwes.project.school_website.entity.StoredBlob;
+import siwes.project.school_website.repository.StoredBlobRepository;
+import siwes.project.school_website.storage.BlobCodec;
+import siwes.project.school_website.storage.BlobKeys;
+import siwes.project.school_website.storage.BlobStore;
+import siwes.project.school_website.storage.StagedBlob;
+import siwes.project.school_website.storage.UploadLayout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Reference-counted access to the {@link BlobStore}. Every row that points at a blob key
+ * holds one reference; the stored bytes are removed when the last reference goes away.
+ * New blobs are stored gzip-compressed (see {@link BlobCodec}) when that saves enough space;
+ * {@link #load} always reads as the original content.
+ */
+@Service
+public class BlobService {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final BlobStore blobStore;
+    private final StoredBlobRepository storedBlobRepository;
+    private final Path tempRoot;
+    private final boolean compressionEnabled;
+    private final long compressionMinSize;
+    private final double compressionMaxRatio;
+    private final int compressionLevel;
+    private final Object[] locks = newLocks();
+
+    public BlobService(BlobStore blobStore,
+                       StoredBlobRepository storedBlobRepository,
+                       UploadLayout uploadLayout,
+                       @Value("${storage.compression.enabled:true}") boolean compressionEnabled,
+                       @Value("${storage.compression.min-size:4096}") long compressionMinSize,
+                       @Value("${storage.compression.max-ratio:0.9}") double compressionMaxRatio,
+                       @Value("${storage.compression.level:6}") int compressionLevel) {
+        this.blobStore = blobStore;
+        this.storedBlobRepository = storedBlobRepository;
+        this.tempRoot = uploadLayout.root().resolve("tmp");
+        this.compressionEnabled = compressionEnabled;
+        this.compressionMinSize = compressionMinSize;
+        this.compressionMaxRatio = compressionMaxRatio;
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Stores the content (once per distinct content) and takes a reference on it.
+     */
+    public StagedBlob storeAndRetain(InputStream content) throws IOException {
+        StagedBlob staged = blobStore.stage(content);
+        String codec = null;
+        long storedSize = staged.size();
+        if (compressionEnabled && !storedBlobRepository.existsById(staged.key())) {
+            StagedBlob compressed = compress(staged);
+            codec = compressed != null ? BlobCodec.GZIP : BlobCodec.IDENTITY;
+            if (compressed != null) {
+                blobStore.discard(staged);
+                staged = compressed;
+                storedSize = Files.size(compressed.tempFile());
+            }
+        }
+        try {
+            synchronized (lockFor(staged.key())) {
+                retain(staged, codec, storedSize);
+                blobStore.commit(staged);
+            }
+        } catch (IOException | RuntimeException e) {
+            blobStore.discard(staged);
+            throw e;
+        }
+        return staged;
+    }
+
+    /**
+     * Tries to compress one stored blob in place; used by the background recompression job.
+     * Returns the codec now recorded for the blob. The copy and the compression run outside
+     * the key's lock; it is only held to re-check the blob and swap the bytes.
+     */
+    public String recompress(String key) throws IOException {
+        StoredBlob blob = storedBlobRepository.findById(key).orElse(null);
+        if (blob == null || BlobCodec.GZIP.equals(blob.getCodec())) {
+            return blob != null ? blob.getCodec() : null;
+        }
+        Path original = Files.createTempFile(createdTempRoot(), "recompress-", ".part");
+        StagedBlob compressed = null;
+        try {
+            try (InputStream in = load(key).getInputStream()) {
+                Files.copy(in, original, StandardCopyOption.REPLACE_EXISTING);
+            }
+            compressed = compress(new StagedBlob(key, blob.getSize(), original));
+            synchronized (lockFor(key)) {
+                // Released, or compressed by someone else, while this copy was being made
+                StoredBlob current = storedBlobRepository.findById(key).orElse(null);
+                if (current == null || !Objects.equals(current.getCodec(), blob.getCodec())) {
+                    return current != null ? current.getCodec() : null;
+                }
+                if (compressed == null) {
+                    storedBlobRepository.updateCodec(key, BlobCodec.IDENTITY, blob.getSize());
+                    return BlobCodec.IDENTITY;
+                }
+                long storedSize = Files.size(compressed.tempFile());
+                blobStore.replace(compressed);
+                storedBlobRepository.updateCodec(key, BlobCodec.GZIP, storedSize);
+                return BlobCodec.GZIP;
+            }
+        } finally {
+            Files.deleteIfExists(original);
+            if (compressed != null) {
+                blobStore.discard(compressed);
+            }
+        }
+    }
+
+    /**
+     * Writes the framed gzip form next to the staged file. Returns it when it is at most
+     * {@code max-ratio} of the original (or the original must be framed to stay
+     * unambiguous), otherwise deletes it and returns {@code null}.
+     */
+    private StagedBlob compress(StagedBlob staged) throws IOException {
+        boolean mustFrame = BlobCodec.startsWithMagic(staged.tempFile());
+        if (staged.size() < compressionMinSize && !mustFrame) {
+            return null;
+        }
+        Path target = Files.createTempFile(createdTempRoot(), "gzip-", ".part");
+        long compressedSize;
+        try (InputStream in = Files.newInputStream(staged.tempFile())) {
+            compressedSize = BlobCodec.compress(in, staged.size(), target, compressionLevel);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        if (!mustFrame && compressedSize > staged.size() * compressionMaxRatio) {
+            Files.deleteIfExists(target);
+            return null;
+        }
+        return new StagedBlob(staged.key(), staged.size(), target);
+    }
+
+    /**
+     * Drops one reference; deletes the bytes once nothing points at them any more.
+     */
+    public void release(String key) {
+        if (!BlobKeys.isBlobKey(key)) {
+            return;
+        }
+        synchronized (lockFor(key)) {
+            storedBlobRepository.decrementRefCount(key);
+            if (storedBlobRepository.deleteIfUnreferenced(key) > 0) {
+                try {
+                    blobStore.delete(key);
+                } catch (IOException e) {
+                    throw new RuntimeException("Could not delete blob: " + key, e);
+                }
+            }
+        }
+    }
+
+    public Resource load(String key) {
+        try {
+            return BlobCodec.decoded(blobStore.load(key));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read blob: " + key, e);
+        }
+    }
+
+    private void retain(StagedBlob staged, String codec, long storedSize) {
+        if (storedBlobRepository.incrementRefCount(staged.key()) == 0) {
+            StoredBlob blob = new StoredBlob();
+            blob.setKey(staged.key());
+            blob.setSize(staged.size());
+            blob.setCodec(codec);
+            blob.setStoredSize(storedSize);
+            blob.setRefCount(1);
+            blob.setCreatedAt(LocalDateTime.now());
+            storedBlobRepository.save(blob);
+        }
+    }
+
+    private Path createdTempRoot() throws IOException {
+        return Files.createDirectories(tempRoot);
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    private static Object[] newLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+}
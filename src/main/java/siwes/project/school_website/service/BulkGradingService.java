@@ -0,0 +1,249 @@
+package siwes.project.school_website.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import siwes.project.school_website.csv.CsvReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Grades a whole assignment at once, from the lecturer's grading grid or from an uploaded
+ * CSV keyed by matric number. Every row is validated first; the valid ones are written in
+ * a single transaction as batched JDBC updates and the invalid ones are reported back by
+ * row, so one bad line does not throw away the rest of the upload.
+ */
+@Service
+public class BulkGradingService {
+
+    private static final String MATRIC_COLUMN = "matric_number";
+    private static final String GRADE_COLUMN = "grade";
+    private static final String FEEDBACK_COLUMN = "feedback";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GradeStatisticsService gradeStatisticsService;
+    private final int batchSize;
+
+    /**
+     * One row of input. {@code key} is the submission id for the grid and the matric
+     * number for CSV imports; a {@code null} feedback keeps the current one and a blank
+     * one clears it.
+     */
+    public record GradeRow(int row, String key, String grade, String feedback) {
+    }
+
+    public record RowError(int row, String key, String message) {
+    }
+
+    /**
+     * @param skipped rows left blank or identical to what is already stored
+     */
+    public record Result(int updated, int skipped, List<RowError> errors) {
+    }
+
+    private record Graded(long submissionId, String matricNumber, Integer grade, String feedback) {
+    }
+
+    private record Change(GradeRow row, long submissionId, Integer previousGrade, int grade, String feedback) {
+    }
+
+    public BulkGradingService(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              GradeStatisticsService gradeStatisticsService,
+                              @Value("${grading.bulk.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.gradeStatisticsService = gradeStatisticsService;
+        this.batchSize = batchSize;
+    }
+
+    public Result gradeGrid(Long assignmentId, List<GradeRow> rows) {
+        Map<Long, Graded> byId = new HashMap<>();
+        for (Graded graded : loadRoster(assignmentId)) {
+            byId.put(graded.submissionId(), graded);
+        }
+        return apply(assignmentId, rows, key -> {
+            try {
+                return byId.get(Long.parseLong(key));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Reads a CSV with a header row naming {@code matric_number}, {@code grade} and,
+     * optionally, {@code feedback} columns in any order. A blank feedback cell keeps the
+     * current feedback. Row numbers in the result count the header as row 1, as a
+     * spreadsheet does.
+     */
+    public Result importCsv(Long assignmentId, InputStream content) throws IOException {
+        List<GradeRow> rows = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new InputStreamReader(content, StandardCharsets.UTF_8))) {
+            List<String> header = reader.next();
+            Map<String, Integer> columns = new HashMap<>();
+            if (header != null) {
+                for (int i = 0; i < header.size(); i++) {
+                    columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT).replace(' ', '_'), i);
+                }
+            }
+            Integer matricColumn = columns.get(MATRIC_COLUMN);
+            Integer gradeColumn = columns.get(GRADE_COLUMN);
+            Integer feedbackColumn = columns.get(FEEDBACK_COLUMN);
+            if (matricColumn == null || gradeColumn == null) {
+                return rejected(1, "The first row must name the matric_number and grade columns");
+            }
+
+            int row = 1;
+            try {
+                for (List<String> record = reader.next(); record != null; record = reader.next()) {
+                    row++;
+                    if (record.stream().allMatch(String::isBlank)) {
+                        continue;
+                    }
+                    String feedback = feedbackColumn != null ? field(record, feedbackColumn) : "";
+                    rows.add(new GradeRow(row, field(record, matricColumn), field(record, gradeColumn),
+                            feedback.isBlank() ? null : feedback));
+                }
+            } catch (CsvReader.MalformedCsvException e) {
+                return rejected(row + 1, e.getMessage() + "; no grades were saved");
+            }
+        }
+
+        Map<String, Graded> byMatric = new HashMap<>();
+        for (Graded graded : loadRoster(assignmentId)) {
+            if (graded.matricNumber() != null) {
+                byMatric.put(normalizeMatric(graded.matricNumber()), graded);
+            }
+        }
+        return apply(assignmentId, rows, key -> byMatric.get(normalizeMatric(key)));
+    }
+
+    private Result apply(Long assignmentId, List<GradeRow> rows, Function<String, Graded> resolve) {
+        List<RowError> errors = new ArrayList<>();
+        List<Change> changes = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        int skipped = 0;
+
+        for (GradeRow row : rows) {
+            String key = row.key() != null ? row.key().trim() : "";
+            String gradeText = row.grade() != null ? row.grade().trim() : "";
+            if (gradeText.isEmpty()) {
+                skipped++;
+                continue;
+            }
+            Graded current = key.isEmpty() ? null : resolve.apply(key);
+            if (current == null) {
+                errors.add(new RowError(row.row(), key, "No submission for this assignment"));
+                continue;
+            }
+            Integer grade = parseGrade(gradeText);
+            if (grade == null) {
+                errors.add(new RowError(row.row(), key, "Grade must be a whole number from 0 to 100"));
+                continue;
+            }
+            if (!seen.add(current.submissionId())) {
+                errors.add(new RowError(row.row(), key, "Submission is graded more than once in this upload"));
+                continue;
+            }
+            // A cleared grid box posts "" and means no feedback, just like a stored NULL
+            String feedback = blankToNull(row.feedback() != null ? row.feedback() : current.feedback());
+            if (grade.equals(current.grade()) && Objects.equals(feedback, blankToNull(current.feedback()))) {
+                skipped++;
+                continue;
+            }
+            changes.add(new Change(row, current.submissionId(), current.grade(), grade, feedback));
+        }
+
+        int updated = 0;
+        if (!changes.isEmpty()) {
+            Long courseId = jdbcTemplate.queryForList("SELECT course_id FROM assignment WHERE id = ?", Long.class, assignmentId)
+                    .stream().findFirst().orElse(null);
+            List<GradeStatisticsService.GradeChange> committed = null;
+            gradeStatisticsService.beginChange();
+            try {
+                // The assignment guard keeps a forged grid row from touching another assignment's submission;
+                // the previous grade guard keeps a concurrent regrade from being overwritten unseen
+                int[][] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(
+                        "UPDATE submission SET grade = ?, feedback = ? " +
+                                "WHERE id = ? AND assignment_id = ? AND grade IS NOT DISTINCT FROM ?",
+                        changes, batchSize, (ps, c) -> {
+                            ps.setInt(1, c.grade());
+                            ps.setString(2, c.feedback());
+                            ps.setLong(3, c.submissionId());
+                            ps.setLong(4, assignmentId);
+                            ps.setObject(5, c.previousGrade(), Types.INTEGER);
+                        }));
+
+                committed = new ArrayList<>(changes.size());
+                int index = 0;
+                for (int[] chunk : counts) {
+                    for (int count : chunk) {
+                        Change change = changes.get(index++);
+                        // Drivers may report SUCCESS_NO_INFO (-2) instead of a row count
+                        if (count == 0) {
+                            errors.add(new RowError(change.row().row(), change.row().key().trim(),
+                                    "Submission was regraded or removed in the meantime; reload and try again"));
+                        } else {
+                            committed.add(new GradeStatisticsService.GradeChange(change.previousGrade(), change.grade()));
+                            updated++;
+                        }
+                    }
+                }
+            } finally {
+                gradeStatisticsService.finishChange(assignmentId, courseId, committed);
+            }
+        }
+
+        errors.sort((a, b) -> Integer.compare(a.row(), b.row()));
+        return new Result(updated, skipped, errors);
+    }
+
+    private List<Graded> loadRoster(Long assignmentId) {
+        return jdbcTemplate.query(
+                "SELECT s.id, u.matric_number, s.grade, s.feedback FROM submission s " +
+                        "JOIN users u ON u.id = s.student_id WHERE s.assignment_id = ?",
+                (rs, n) -> new Graded(rs.getLong(1), rs.getString(2), rs.getObject(3, Integer.class), rs.getString(4)),
+                assignmentId);
+    }
+
+    private static Integer parseGrade(String text) {
+        try {
+            int grade = Integer.parseInt(text);
+            return grade >= 0 && grade <= 100 ? grade : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static String field(List<String> record, int column) {
+        return column < record.size() ? CsvReader.unguarded(record.get(column)) : "";
+    }
+
+    private static String normalizeMatric(String matricNumber) {
+        return matricNumber.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static Result rejected(int row, String message) {
+        return new Result(0, 0, List.of(new RowError(row, "", message)));
+    }
+}
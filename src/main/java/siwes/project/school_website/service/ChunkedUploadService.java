@@ -0,0 +1,228 @@
+package siwes.project.school_website.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import siwes.project.school_website.entity.UploadSession;
+import siwes.project.school_website.exception.UploadOffsetMismatchException;
+import siwes.project.school_website.repository.AssignmentRepository;
+import siwes.project.school_website.repository.UploadSessionRepository;
+import siwes.project.school_website.storage.UploadLayout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Resumable uploads: a client opens a session, appends chunks at the committed offset,
+ * asks for that offset after a dropped connection, and finally hands the assembled file
+ * to {@link SubmissionService}. Partial files live in {@code <storage.root>/partial}.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+    private static final int LOCK_STRIPES = 64;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final SubmissionService submissionService;
+    private final Path partialRoot;
+    private final long maxFileSize;
+    private final long maxChunkSize;
+    private final Duration idleTimeout;
+    private final SecureRandom random = new SecureRandom();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public record UploadStatus(String uploadId, long offset, long length, long maxChunkSize) {
+    }
+
+    public ChunkedUploadService(UploadSessionRepository uploadSessionRepository,
+                                AssignmentRepository assignmentRepository,
+                                SubmissionService submissionService,
+                                UploadLayout uploadLayout,
+                                @Value("${uploads.chunked.max-file-size:104857600}") long maxFileSize,
+                                @Value("${uploads.chunked.max-chunk-size:8388608}") long maxChunkSize,
+                                @Value("${uploads.chunked.idle-timeout:PT24H}") Duration idleTimeout) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.submissionService = submissionService;
+        this.partialRoot = uploadLayout.root().resolve("partial");
+        this.maxFileSize = maxFileSize;
+        this.maxChunkSize = maxChunkSize;
+        this.idleTimeout = idleTimeout;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public UploadStatus start(String username, Long assignmentId, String filename, long totalSize) throws IOException {
+        if (!assignmentRepository.existsById(assignmentId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Assignment not found");
+        }
+        if (totalSize <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Failed to store empty file.");
+        }
+        if (totalSize > maxFileSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "File is larger than " + maxFileSize + " bytes");
+        }
+        byte[] id = new byte[16];
+        random.nextBytes(id);
+        LocalDateTime now = LocalDateTime.now();
+        UploadSession session = new UploadSession(HexFormat.of().formatHex(id), username, assignmentId,
+                filename != null && !filename.isBlank() ? filename : "submission", totalSize, now, now);
+
+        Files.createDirectories(partialRoot);
+        Files.createFile(partialFile(session.getId()));
+        uploadSessionRepository.save(session);
+        return status(session, 0);
+    }
+
+    public UploadStatus status(String uploadId, String username) throws IOException {
+        synchronized (lockFor(uploadId)) {
+            UploadSession session = owned(uploadId, username);
+            return status(session, committed(uploadId));
+        }
+    }
+
+    /**
+     * Appends one chunk, which must start exactly at the committed offset. Bytes that made
+     * it to disk before a connection dropped stay committed, so the client resumes from
+     * wherever the server actually got to.
+     * <p>
+     * Every operation on a session looks it up under the upload's lock, and expiry deletes
+     * under the same lock, so a session found here keeps its partial file until this returns.
+     */
+    public UploadStatus append(String uploadId, String username, long offset, InputStream chunk) throws IOException {
+        synchronized (lockFor(uploadId)) {
+            UploadSession session = owned(uploadId, username);
+            Path partial = partialFile(uploadId);
+            long committed = committed(uploadId);
+            if (offset != committed) {
+                throw new UploadOffsetMismatchException(committed);
+            }
+            long remaining = Math.min(maxChunkSize, session.getTotalSize() - committed);
+            try (FileChannel out = FileChannel.open(partial, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ReadableByteChannel in = Channels.newChannel(chunk);
+                ByteBuffer buffer = ByteBuffer.allocate(16384);
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    if (buffer.remaining() > remaining) {
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                "Chunk exceeds the declared upload length or the chunk size limit");
+                    }
+                    remaining -= buffer.remaining();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            } finally {
+                uploadSessionRepository.touch(uploadId, LocalDateTime.now());
+            }
+            return status(session, Files.size(partial));
+        }
+    }
+
+    /**
+     * Submits the assembled file once every byte has arrived, then drops the session.
+     */
+    public Long finish(String uploadId, String username) throws IOException {
+        synchronized (lockFor(uploadId)) {
+            UploadSession session = owned(uploadId, username);
+            long committed = committed(uploadId);
+            if (committed != session.getTotalSize()) {
+                throw new UploadOffsetMismatchException(committed);
+            }
+            try (InputStream in = Files.newInputStream(partialFile(uploadId))) {
+                submissionService.submitAssignment(session.getAssignmentId(), username, session.getOriginalFilename(), in);
+            }
+            discard(uploadId);
+            return session.getAssignmentId();
+        }
+    }
+
+    public void cancel(String uploadId, String username) {
+        synchronized (lockFor(uploadId)) {
+            owned(uploadId, username);
+            discard(uploadId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${uploads.chunked.expiry-interval:PT15M}")
+    public void expireIdleUploads() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(idleTimeout);
+        int batchSize = 200;
+        List<String> idle;
+        do {
+            idle = uploadSessionRepository.findIdleIds(cutoff, batchSize);
+            for (String id : idle) {
+                synchronized (lockFor(id)) {
+                    // An append may have finished, and touched the session, since the query ran
+                    boolean stillIdle = uploadSessionRepository.findById(id)
+                            .map(session -> session.getLastActivity().isBefore(cutoff))
+                            .orElse(false);
+                    if (stillIdle) {
+                        discard(id);
+                    }
+                }
+            }
+        } while (idle.size() == batchSize);
+    }
+
+    private void discard(String uploadId) {
+        try {
+            Files.deleteIfExists(partialFile(uploadId));
+        } catch (IOException e) {
+            log.warn("Could not delete partial upload {}: {}", uploadId, e.getMessage());
+        }
+        uploadSessionRepository.deleteById(uploadId);
+    }
+
+    private UploadSession owned(String uploadId, String username) {
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found or expired"));
+        if (!session.getUsername().equals(username)) {
+            // Same answer as a missing session so upload ids cannot be probed
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found or expired");
+        }
+        return session;
+    }
+
+    private long committed(String uploadId) throws IOException {
+        try {
+            return Files.size(partialFile(uploadId));
+        } catch (NoSuchFileException e) {
+            // The session row outlived its file, e.g. after a crash mid-discard
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found or expired");
+        }
+    }
+
+    private UploadStatus status(UploadSession session, long offset) {
+        return new UploadStatus(session.getId(), offset, session.getTotalSize(), maxChunkSize);
+    }
+
+    private Path partialFile(String uploadId) {
+        return partialRoot.resolve(uploadId + ".part");
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+}
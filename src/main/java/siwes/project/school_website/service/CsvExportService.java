@@ -0,0 +1,243 @@
+package siwes.project.school_website.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import siwes.project.school_website.csv.CsvWriter;
+import siwes.project.school_website.entity.Assignment;
+import siwes.project.school_website.entity.Course;
+import siwes.project.school_website.entity.Department;
+import siwes.project.school_website.entity.Role;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CSV exports streamed straight from the database. Rows are read through a forward-only
+ * cursor, {@code exports.csv.fetch-size} at a time, and written to the response as they
+ * arrive, so memory use does not depend on the number of rows. PostgreSQL only keeps a
+ * cursor open inside a transaction, hence the read-only transaction around each query.
+ * <p>
+ * Gradebook headers match the columns {@link BulkGradingService#importCsv} reads, so an
+ * exported assignment gradebook can be filled in and imported back.
+ */
+@Service
+public class CsvExportService {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int bufferSize;
+
+    @FunctionalInterface
+    private interface Export {
+        void write(CsvWriter csv) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private record Column(long assignmentId, String title) {
+    }
+
+    public CsvExportService(DataSource dataSource,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${exports.csv.fetch-size:500}") int fetchSize,
+                            @Value("${exports.csv.buffer-size:65536}") int bufferSize) {
+        // A template of its own: the fetch size would otherwise apply to every query in the app
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * The students of the course's department, as on the course details page.
+     */
+    public ResponseEntity<StreamingResponseBody> courseStudents(Course course, boolean gzip) {
+        long departmentId = course.getDepartment().getId();
+        return stream("students_" + course.getName(), gzip, csv -> {
+            csv.record("Full Name", "Matric Number", "Level", "Email", "Phone Number");
+            query("SELECT full_name, matric_number, level, email, phone_number FROM users " +
+                            "WHERE department_id = ? AND role = ? ORDER BY matric_number, id",
+                    rs -> csv.field(rs.getString(1))
+                            .field(rs.getString(2))
+                            .field(rs.getString(3))
+                            .field(rs.getString(4))
+                            .field(rs.getString(5))
+                            .endRecord(),
+                    departmentId, Role.STUDENT.name());
+        });
+    }
+
+    /**
+     * One row per student expected to submit (the department of the assignment's course),
+     * with their submission state, grade and feedback.
+     */
+    public ResponseEntity<StreamingResponseBody> assignmentGradebook(Assignment assignment, boolean gzip) {
+        long assignmentId = assignment.getId();
+        Department department = assignment.getCourse() != null
+                ? assignment.getCourse().getDepartment()
+                : assignment.getDepartment();
+        if (department == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Assignment has no department");
+        }
+        long departmentId = department.getId();
+        return stream("grades_" + assignment.getTitle(), gzip, csv -> {
+            csv.record("Matric Number", "Full Name", "Status", "Submitted At", "Grade", "Feedback");
+            query("SELECT u.matric_number, u.full_name, s.id, s.status, s.submitted_at, s.grade, s.feedback " +
+                            "FROM users u LEFT JOIN submission s ON s.student_id = u.id AND s.assignment_id = ? " +
+                            "WHERE u.department_id = ? AND u.role = ? ORDER BY u.matric_number, u.id",
+                    rs -> {
+                        boolean submitted = rs.getObject(3) != null;
+                        LocalDateTime submittedAt = rs.getObject(5, LocalDateTime.class);
+                        csv.field(rs.getString(1))
+                                .field(rs.getString(2))
+                                .field(submitted ? rs.getString(4) : "NOT_SUBMITTED")
+                                .field(submittedAt != null ? submittedAt.withNano(0).toString() : null)
+                                .field(rs.getObject(6, Integer.class))
+                                .field(rs.getString(7))
+                                .endRecord();
+                    },
+                    assignmentId, departmentId, Role.STUDENT.name());
+        });
+    }
+
+    /**
+     * One row per student of the course's department and one grade column per assignment
+     * of the course, in due date order. Only the current student's grades are held while
+     * writing, so memory grows with the number of assignments, not students.
+     */
+    public ResponseEntity<StreamingResponseBody> courseGradebook(Course course, boolean gzip) {
+        long courseId = course.getId();
+        long departmentId = course.getDepartment().getId();
+        return stream("gradebook_" + course.getName(), gzip, csv -> {
+            List<Column> columns = readOnlyTransaction.execute(status -> jdbcTemplate.query(
+                    "SELECT id, title FROM assignment WHERE course_id = ? ORDER BY due_date, id",
+                    (rs, n) -> new Column(rs.getLong(1), rs.getString(2)), courseId));
+            Map<Long, Integer> columnOf = new HashMap<>();
+            List<String> header = new ArrayList<>(List.of("Matric Number", "Full Name"));
+            for (Column column : columns) {
+                columnOf.put(column.assignmentId(), columnOf.size());
+                header.add(column.title());
+            }
+            csv.record(header.toArray(String[]::new));
+
+            StudentGrades student = new StudentGrades(columns.size());
+            query("SELECT u.id, u.matric_number, u.full_name, s.assignment_id, s.grade FROM users u " +
+                            "LEFT JOIN submission s ON s.student_id = u.id " +
+                            "AND s.assignment_id IN (SELECT id FROM assignment WHERE course_id = ?) " +
+                            "WHERE u.department_id = ? AND u.role = ? ORDER BY u.matric_number, u.id",
+                    rs -> {
+                        long studentId = rs.getLong(1);
+                        if (studentId != student.studentId) {
+                            student.writeTo(csv);
+                            student.start(studentId, rs.getString(2), rs.getString(3));
+                        }
+                        // Null for students without submissions, or for an assignment created after the header was read
+                        Integer column = columnOf.get(rs.getLong(4));
+                        if (column != null) {
+                            student.grades[column] = rs.getObject(5, Integer.class);
+                        }
+                    },
+                    courseId, departmentId, Role.STUDENT.name());
+            student.writeTo(csv);
+        });
+    }
+
+    /**
+     * The course gradebook row being collected; rows arrive grouped by student.
+     */
+    private static final class StudentGrades {
+
+        private final Integer[] grades;
+        private long studentId = -1;
+        private String matricNumber;
+        private String fullName;
+
+        private StudentGrades(int assignments) {
+            this.grades = new Integer[assignments];
+        }
+
+        private void start(long studentId, String matricNumber, String fullName) {
+            this.studentId = studentId;
+            this.matricNumber = matricNumber;
+            this.fullName = fullName;
+            Arrays.fill(grades, null);
+        }
+
+        private void writeTo(CsvWriter csv) throws IOException {
+            if (studentId == -1) {
+                return;
+            }
+            csv.field(matricNumber).field(fullName);
+            for (Integer grade : grades) {
+                csv.field(grade);
+            }
+            csv.endRecord();
+        }
+    }
+
+    private void query(String sql, RowWriter rowWriter, Object... args) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args));
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the rollback above already closed the cursor
+            throw e.getCause();
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, boolean gzip, Export export) {
+        String filename = name + (gzip ? ".csv.gz" : ".csv");
+        return ResponseEntity.ok()
+                .contentType(gzip ? GZIP : TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(filename, StandardCharsets.UTF_8).build().toString())
+                .body(out -> {
+                    GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, bufferSize) : null;
+                    OutputStream target = compressed != null ? compressed : out;
+                    CsvWriter csv = new CsvWriter(new BufferedWriter(
+                            new OutputStreamWriter(target, StandardCharsets.UTF_8), bufferSize));
+                    export.write(csv);
+                    csv.flush();
+                    if (compressed != null) {
+                        compressed.finish();
+                    }
+                });
+    }
+}
@@ -1,33 +1,94 @@
 package siwes.project.school_website.service;
 
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import siwes.project.school_website.cache.TtlCache;
+import siwes.project.school_website.entity.Role;
 import siwes.project.school_website.entity.User;
 import siwes.project.school_website.repository.UserRepository;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 @Service
-@RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final TtlCache<String, LoginAccount> cache;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Value("${security.user-cache.max-size:10000}") int maxSize,
+                                    @Value("${security.user-cache.ttl:PT5M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = new TtlCache<>(maxSize, ttl);
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .or(() -> userRepository.findByEmail(username))
-                .or(() -> userRepository.findByPhoneNumber(username))
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
+        LoginAccount account = cache.get(username, this::lookup);
+        if (account == null) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        // Always hand out a fresh UserDetails: Spring Security erases the credentials
+        // of the instance it authenticated, which must not leak into the cache.
         return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
+                account.username(),
+                account.passwordHash(),
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + account.role().name()))
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Called by Spring Security after a successful login when the encoder reports that the
+     * stored hash is weaker than the configured BCrypt strength.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.findByUsername(user.getUsername()).ifPresent(entity -> {
+            entity.setPassword(newPassword);
+            userRepository.save(entity);
+        });
+        evict(user.getUsername());
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
+
+    /**
+     * Drops every cached login identifier that resolves to the given user.
+     */
+    public void evict(String username) {
+        if (username != null) {
+            cache.invalidateIf(account -> account.username().equals(username));
+        }
+    }
+
+    public TtlCache.CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    private LoginAccount lookup(String login) {
+        List<User> matches = userRepository.findByLoginIdentifier(login);
+        return matches.stream()
+                .min(Comparator.comparingInt(u -> matchPriority(u, login)))
+                .map(u -> new LoginAccount(u.getUsername(), u.getPassword(), u.getRole()))
+                .orElse(null);
+    }
+
+    // Same precedence as the old username -> email -> phone chain.
+    private static int matchPriority(User user, String login) {
+        if (login.equals(user.getUsername())) return 0;
+        if (login.equals(user.getEmail())) return 1;
+        return 2;
+    }
+
+    private record LoginAccount(String username, String passwordHash, Role role) {
+    }
+}
@@ -0,0 +1,333 @@
+package siwes.project.school_website.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import siwes.project.school_website.cache.TtlCache;
+import siwes.project.school_website.storage.CompressedResource;
+import siwes.project.school_website.storage.PinnedFileResource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Writes a stored file to the response with HTTP caching and range support:
+ * strong ETags, 304 answers to If-None-Match / If-Modified-Since, single-range 206
+ * responses for resumed downloads, and zero-copy transfer for files on disk (Tomcat
+ * sendfile when the connector offers it, otherwise {@link FileChannel#transferTo}).
+ * Compressed blobs are sent with {@code Content-Encoding: gzip} when the client accepts it.
+ */
+@Service
+public class FileDownloadService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Legacy uploads have no stored hash; hash them once per (path, size, mtime).
+    private final TtlCache<String, String> legacyEtags;
+
+    public FileDownloadService(@Value("${downloads.etag-cache-size:2000}") int etagCacheSize) {
+        this.legacyEtags = new TtlCache<>(etagCacheSize, Duration.ofHours(12));
+    }
+
+    /**
+     * @param contentHash hex content hash if already known (blob key), otherwise {@code null}
+     * @param contentType response type, or {@code null} to derive it from the file name
+     * @param filename    download name for Content-Disposition, or {@code null} to serve inline
+     */
+    public void send(HttpServletRequest request, HttpServletResponse response, Resource resource,
+                     String contentHash, String contentType, String filename, String cacheControl) throws IOException {
+        try {
+            write(request, response, resource, contentHash, contentType, filename, cacheControl);
+        } finally {
+            // Loaded blobs hold their file open once read
+            if (resource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, Resource resource,
+                       String contentHash, String contentType, String filename, String cacheControl) throws IOException {
+        long length = resource.contentLength();
+        long lastModified = resource.lastModified() / 1000 * 1000;
+        String hash = contentHash != null ? contentHash : legacyHash(resource, length, lastModified);
+
+        // Stored-compressed blobs go out as-is to clients that accept gzip; ranges are
+        // only served from the decoded form
+        CompressedResource passThrough = null;
+        if (resource instanceof CompressedResource compressed) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (request.getHeader(HttpHeaders.RANGE) == null && acceptsEncoding(request, compressed.getContentEncoding())) {
+                passThrough = compressed;
+                hash = hash + "-" + compressed.getContentEncoding();
+            }
+        }
+        String etag = "\"" + hash + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (cacheControl != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        if (contentType == null) {
+            contentType = MediaTypeFactory.getMediaType(filename != null ? filename : resource.getFilename())
+                    .map(MediaType::toString)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        }
+        response.setContentType(contentType);
+        if (filename != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build().toString());
+        }
+
+        if (passThrough != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, passThrough.getContentEncoding());
+            long encodedLength = passThrough.encodedLength();
+            response.setContentLengthLong(encodedLength);
+            if (!"HEAD".equals(request.getMethod())) {
+                try (InputStream in = passThrough.getEncodedInputStream()) {
+                    in.transferTo(response.getOutputStream());
+                }
+            }
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+        if (resource instanceof PinnedFileResource pinned) {
+            // Sent through the resource, which knows if the file was recompressed since it was loaded
+            transfer(pinned::transferTo, response, start, count);
+        } else if (resource.isFile()) {
+            sendFile(request, response, resource.getFile().toPath(), start, count);
+        } else {
+            sendStream(response, resource, start, count);
+        }
+    }
+
+    private void sendFile(HttpServletRequest request, HttpServletResponse response, Path file, long start, long count) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat streams the file with sendfile(2) after the servlet returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel::transferTo, response, start, count);
+        }
+    }
+
+    private interface Transfer {
+        long transferTo(long position, long count, WritableByteChannel target) throws IOException;
+    }
+
+    private static void transfer(Transfer source, HttpServletResponse response, long start, long count) throws IOException {
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        long remaining = count;
+        while (remaining > 0) {
+            long sent = source.transferTo(position, remaining, out);
+            if (sent <= 0) {
+                break;
+            }
+            position += sent;
+            remaining -= sent;
+        }
+    }
+
+    private void sendStream(HttpServletResponse response, Resource resource, long start, long count) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            in.skipNBytes(start);
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[16384];
+            long remaining = count;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesEtag(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified <= date;
+    }
+
+    private static boolean acceptsEncoding(HttpServletRequest request, String encoding) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String[] parts = candidate.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase(encoding) || name.equals("*")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim().replace(" ", "");
+                    if (param.startsWith("q=") && isZero(param.substring(2))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZero(String qvalue) {
+        try {
+            return Double.parseDouble(qvalue) == 0;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static boolean matchesEtag(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns {start, end} for a satisfiable single range, an empty array when the header
+     * should be ignored (malformed or multi-range: the full body is sent instead), or
+     * {@code null} when the range cannot be satisfied.
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                long last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                if (last < start) {
+                    return new long[0];
+                }
+                end = Math.min(last, length - 1);
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private String legacyHash(Resource resource, long length, long lastModified) throws IOException {
+        String cacheKey = resource.getDescription() + "|" + length + "|" + lastModified;
+        String cached = legacyEtags.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        legacyEtags.put(cacheKey, hash);
+        return hash;
+    }
+}
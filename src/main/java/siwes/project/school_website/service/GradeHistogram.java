@@ -0,0 +1,82 @@
+package siwes.project.school_website.service;
+
+/**
+ * Exact distribution of integer grades from 0 to 100: a count per grade plus running sums.
+ * Grades can be removed as well as added, which is what a regrade needs, and every
+ * statistic, median and percentiles included, is exact. Not thread-safe.
+ */
+class GradeHistogram {
+
+    static final int MAX_GRADE = 100;
+
+    private final long[] counts = new long[MAX_GRADE + 1];
+    private long count;
+    private long sum;
+    private long sumOfSquares;
+    private GradeStatistics snapshot = GradeStatistics.EMPTY;
+
+    /**
+     * Grades outside 0 to 100 are not counted.
+     */
+    void add(int grade, long times) {
+        if (grade < 0 || grade > MAX_GRADE) {
+            return;
+        }
+        counts[grade] += times;
+        count += times;
+        sum += grade * times;
+        sumOfSquares += (long) grade * grade * times;
+        snapshot = null;
+    }
+
+    void add(int grade) {
+        add(grade, 1);
+    }
+
+    /**
+     * Ignores grades the histogram does not hold, as when another instance regraded a
+     * submission after this histogram was loaded; the next rebuild corrects the counts.
+     */
+    void remove(int grade) {
+        if (grade >= 0 && grade <= MAX_GRADE && counts[grade] > 0) {
+            add(grade, -1);
+        }
+    }
+
+    /**
+     * Computed once per change, so repeated reads cost nothing.
+     */
+    GradeStatistics statistics() {
+        if (snapshot == null) {
+            snapshot = count == 0 ? GradeStatistics.EMPTY : compute();
+        }
+        return snapshot;
+    }
+
+    private GradeStatistics compute() {
+        double mean = (double) sum / count;
+        // Exact in longs while count * sumOfSquares fits, i.e. for tens of millions of grades
+        double variance = (double) (count * sumOfSquares - sum * sum) / ((double) count * count);
+        return new GradeStatistics(count, mean, variance, percentile(0), percentile(100),
+                percentile(25), percentile(50), percentile(75));
+    }
+
+    /**
+     * Nearest-rank percentile: the smallest grade with at least {@code p} percent of the
+     * grades at or below it. {@code p = 0} is the minimum.
+     */
+    Integer percentile(int p) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (count * p + 99) / 100);
+        long seen = 0;
+        for (int grade = 0; grade <= MAX_GRADE; grade++) {
+            seen += counts[grade];
+            if (seen >= rank) {
+                return grade;
+            }
+        }
+        return MAX_GRADE;
+    }
+}
@@ -0,0 +1,34 @@
+package siwes.project.school_website.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the graded submissions of an assignment or course. Variance and standard
+ * deviation are over the whole class (population), and the quartiles are nearest-rank
+ * grades, so they are always grades somebody actually got. The extremes and quartiles
+ * are {@code null} while nothing is graded.
+ */
+@Getter
+@AllArgsConstructor
+public class GradeStatistics {
+
+    public static final GradeStatistics EMPTY = new GradeStatistics(0, 0, 0, null, null, null, null, null);
+
+    private final long count;
+    private final double mean;
+    private final double variance;
+    private final Integer min;
+    private final Integer max;
+    private final Integer lowerQuartile;
+    private final Integer median;
+    private final Integer upperQuartile;
+
+    public double getStandardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+}
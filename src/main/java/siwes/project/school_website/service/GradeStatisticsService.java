@@ -0,0 +1,136 @@
+package siwes.project.school_website.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import siwes.project.school_website.cache.TtlCache;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Grade statistics per assignment and per course. Each scope's histogram is built with one
+ * grouped query the first time it is read and is then kept current by applying every grade
+ * change to it, so pages read statistics without aggregating submissions.
+ * <p>
+ * Writers bracket grade updates with {@link #beginChange()} and
+ * {@link #finishChange(Long, Long, List)}. While a change is in flight, freshly loaded
+ * histograms are not cached, since they may or may not include it. The TTL bounds drift
+ * from changes this instance cannot see, such as grades written by another instance.
+ */
+@Service
+public class GradeStatisticsService {
+
+    private static final String ASSIGNMENT = "assignment:";
+    private static final String COURSE = "course:";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TtlCache<String, GradeHistogram> cache;
+    private long generation;
+    private int changesInFlight;
+
+    /**
+     * A committed grade change; {@code null} means ungraded.
+     */
+    public record GradeChange(Integer previous, Integer current) {
+    }
+
+    public GradeStatisticsService(JdbcTemplate jdbcTemplate,
+                                  @Value("${grades.statistics.cache.max-size:5000}") int maxSize,
+                                  @Value("${grades.statistics.cache.ttl:PT1H}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = new TtlCache<>(maxSize, ttl);
+    }
+
+    public GradeStatistics forAssignment(Long assignmentId) {
+        return statistics(ASSIGNMENT + assignmentId,
+                "SELECT grade, COUNT(*) FROM submission WHERE assignment_id = ? AND grade IS NOT NULL GROUP BY grade",
+                assignmentId);
+    }
+
+    public GradeStatistics forCourse(Long courseId) {
+        return statistics(COURSE + courseId,
+                "SELECT s.grade, COUNT(*) FROM submission s JOIN assignment a ON a.id = s.assignment_id " +
+                        "WHERE a.course_id = ? AND s.grade IS NOT NULL GROUP BY s.grade",
+                courseId);
+    }
+
+    public void beginChange() {
+        synchronized (this) {
+            changesInFlight++;
+            generation++;
+        }
+    }
+
+    /**
+     * Applies committed changes to the cached histograms of the assignment and its course.
+     *
+     * @param courseId  {@code null} when the assignment has no course
+     * @param committed {@code null} when the write failed; the affected scopes are then reloaded
+     */
+    public void finishChange(Long assignmentId, Long courseId, List<GradeChange> committed) {
+        synchronized (this) {
+            changesInFlight--;
+            generation++;
+            if (committed == null) {
+                cache.invalidate(ASSIGNMENT + assignmentId);
+                cache.invalidate(COURSE + courseId);
+                return;
+            }
+            apply(cache.get(ASSIGNMENT + assignmentId), committed);
+            if (courseId != null) {
+                apply(cache.get(COURSE + courseId), committed);
+            }
+        }
+    }
+
+    /**
+     * For changes that are not tracked grade by grade, such as deleting an assignment or
+     * a student along with their submissions.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            generation++;
+            cache.invalidateAll();
+        }
+    }
+
+    public TtlCache.CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    private static void apply(GradeHistogram histogram, List<GradeChange> changes) {
+        if (histogram == null) {
+            return;
+        }
+        for (GradeChange change : changes) {
+            if (change.previous() != null) {
+                histogram.remove(change.previous());
+            }
+            if (change.current() != null) {
+                histogram.add(change.current());
+            }
+        }
+    }
+
+    private GradeStatistics statistics(String key, String sql, Long id) {
+        long seen;
+        synchronized (this) {
+            GradeHistogram cached = cache.get(key);
+            if (cached != null) {
+                return cached.statistics();
+            }
+            seen = changesInFlight == 0 ? generation : -1;
+        }
+        GradeHistogram loaded = new GradeHistogram();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> loaded.add(rs.getInt(1), rs.getLong(2)), id);
+        synchronized (this) {
+            // Only cache what no concurrent change could have overtaken
+            if (seen == generation) {
+                cache.put(key, loaded);
+            }
+            return loaded.statistics();
+        }
+    }
+}
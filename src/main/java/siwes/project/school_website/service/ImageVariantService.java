@@ -0,0 +1,262 @@
+package siwes.project.school_website.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import siwes.project.school_website.cache.TtlCache;
+import siwes.project.school_website.storage.BlobKeys;
+import siwes.project.school_website.storage.UploadLayout;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Produces downscaled JPEG variants of uploaded profile pictures. Variants are written
+ * next to the original ({@code <original>.<variant>.jpg}) when a picture is uploaded, or
+ * lazily the first time an older picture is requested, and hot ones are kept in memory.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    /**
+     * Cache-Control for profile pictures and their variants: picture names are unique per
+     * upload, so a given URL never changes content.
+     */
+    public static final String IMMUTABLE_CACHE = "private, max-age=31536000, immutable";
+
+    public enum Variant {
+        THUMB(160), MEDIUM(480);
+
+        private final int maxSide;
+
+        Variant(int maxSide) {
+            this.maxSide = maxSide;
+        }
+
+        public static Variant fromParam(String value) {
+            try {
+                return Variant.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown image size: " + value);
+            }
+        }
+    }
+
+    public record VariantImage(Resource resource, String contentHash) {
+        public String contentType() {
+            return "image/jpeg";
+        }
+    }
+
+    private final UploadLayout uploadLayout;
+    private final BlobService blobService;
+    private final TtlCache<String, CachedVariant> cache;
+
+    public ImageVariantService(UploadLayout uploadLayout, BlobService blobService,
+                               @Value("${images.variant-cache-size:500}") int cacheSize) {
+        this.uploadLayout = uploadLayout;
+        this.blobService = blobService;
+        this.cache = new TtlCache<>(cacheSize, Duration.ofHours(6));
+    }
+
+    /**
+     * Eagerly builds all variants for a freshly uploaded picture. Failures are only logged;
+     * the variant is retried on first request.
+     */
+    public void generateVariants(String filename) {
+        for (Variant variant : Variant.values()) {
+            try {
+                loadOrCreate(filename, variant);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not create {} variant of {}: {}", variant, filename, e.getMessage());
+            }
+        }
+    }
+
+    public VariantImage load(String filename, Variant variant) {
+        try {
+            CachedVariant cached = loadOrCreate(filename, variant);
+            return new VariantImage(cached.asResource(filename, variant), cached.hash());
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read file: " + filename, e);
+        }
+    }
+
+    private CachedVariant loadOrCreate(String filename, Variant variant) throws IOException {
+        String cacheKey = variant.name() + "/" + filename;
+        CachedVariant cached = cache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        Path variantFile = variantPath(filename, variant);
+        byte[] bytes;
+        if (Files.exists(variantFile)) {
+            bytes = Files.readAllBytes(variantFile);
+        } else {
+            bytes = resize(loadOriginal(filename), variant.maxSide);
+            Files.createDirectories(variantFile.getParent());
+            Path temp = Files.createTempFile(variantFile.getParent(), "variant-", ".part");
+            Files.write(temp, bytes);
+            Files.move(temp, variantFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        cached = new CachedVariant(bytes, sha256(bytes), Files.getLastModifiedTime(variantFile).toMillis());
+        cache.put(cacheKey, cached);
+        return cached;
+    }
+
+    /**
+     * The uploaded picture itself: a blob for {@code <key>.<ext>} names, otherwise a legacy file.
+     */
+    public Resource loadOriginal(String filename) {
+        String key = BlobKeys.keyOf(filename);
+        if (key != null) {
+            return blobService.load(key);
+        }
+        Path file = uploadLayout.existingFileFor(filename);
+        if (!Files.isReadable(file)) {
+            throw new RuntimeException("Could not read file: " + filename);
+        }
+        return new FileSystemResource(file);
+    }
+
+    public Path variantPath(String filename, Variant variant) {
+        // Variants sit next to the original in its shard directory
+        return uploadLayout.fileFor(filename).resolveSibling(variantName(filename, variant));
+    }
+
+    public static String variantName(String filename, Variant variant) {
+        return filename + "." + variant.name().toLowerCase(Locale.ROOT) + ".jpg";
+    }
+
+    /**
+     * The picture a stored file was derived from: the original's name for a variant,
+     * otherwise the name itself.
+     */
+    public static String originalName(String storedName) {
+        for (Variant variant : Variant.values()) {
+            String suffix = "." + variant.name().toLowerCase(Locale.ROOT) + ".jpg";
+            if (storedName.endsWith(suffix) && storedName.length() > suffix.length()) {
+                return storedName.substring(0, storedName.length() - suffix.length());
+            }
+        }
+        return storedName;
+    }
+
+    private static byte[] resize(Resource original, int maxSide) throws IOException {
+        BufferedImage source = read(original, maxSide);
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxSide / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE); // flatten transparent PNGs
+            g.fillRect(0, 0, targetWidth, targetHeight);
+            g.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            g.dispose();
+        }
+        return writeJpeg(target);
+    }
+
+    /**
+     * Decodes the image with source subsampling so a 12-megapixel phone photo never has to
+     * be held in memory at full resolution just to make a thumbnail.
+     */
+    private static BufferedImage read(Resource original, int maxSide) throws IOException {
+        try (InputStream in = original.getInputStream();
+             ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longest / (maxSide * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static byte[] writeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.85f);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedVariant(byte[] bytes, String hash, long lastModified) {
+        Resource asResource(String filename, Variant variant) {
+            String name = variantName(filename, variant);
+            long modified = lastModified;
+            return new ByteArrayResource(bytes) {
+                @Override
+                public String getFilename() {
+                    return name;
+                }
+
+                @Override
+                public long lastModified() {
+                    return modified;
+                }
+            };
+        }
+    }
+}
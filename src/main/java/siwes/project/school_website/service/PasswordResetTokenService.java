@@ -0,0 +1,83 @@
+package siwes.project.school_website.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import siwes.project.school_website.entity.PasswordResetToken;
+import siwes.project.school_website.entity.User;
+import siwes.project.school_website.repository.PasswordResetTokenRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Issues and checks password-reset tokens. Only a SHA-256 hash of each token is stored,
+ * in its own narrow table, so forgot-password traffic never rewrites the users table.
+ */
+@Service
+public class PasswordResetTokenService {
+
+    private final PasswordResetTokenRepository tokenRepository;
+    private final SecureRandom random = new SecureRandom();
+    private final Duration validity;
+    private final int sweepBatchSize;
+
+    public PasswordResetTokenService(PasswordResetTokenRepository tokenRepository,
+                                     @Value("${security.password-reset.validity:PT24H}") Duration validity,
+                                     @Value("${security.password-reset.sweep-batch-size:500}") int sweepBatchSize) {
+        this.tokenRepository = tokenRepository;
+        this.validity = validity;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    public String issueToken(User user) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        PasswordResetToken resetToken = new PasswordResetToken();
+        resetToken.setTokenHash(hash(token));
+        resetToken.setUser(user);
+        resetToken.setExpiresAt(LocalDateTime.now().plus(validity));
+        tokenRepository.save(resetToken);
+        return token;
+    }
+
+    public Optional<User> findUserByToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        return tokenRepository.findUserByValidToken(hash(token), LocalDateTime.now());
+    }
+
+    public void revokeTokens(User user) {
+        if (user.getId() != null) {
+            tokenRepository.deleteByUserId(user.getId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.password-reset.sweep-interval:PT30M}")
+    public void sweepExpiredTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted;
+        do {
+            deleted = tokenRepository.deleteExpiredBatch(now, sweepBatchSize);
+        } while (deleted == sweepBatchSize);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package siwes.project.school_website.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import siwes.project.school_website.cache.TtlCache;
+import siwes.project.school_website.entity.Course;
+import siwes.project.school_website.entity.Department;
+import siwes.project.school_website.repository.CourseRepository;
+import siwes.project.school_website.repository.DepartmentRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for departments and courses, which change a few times per semester
+ * but are looked up on registration, profile updates and most admin pages. Writers call
+ * {@link #invalidate()} after saving, and so do writes to any user who may lecture a
+ * course, since cached courses carry their lecturer. The TTL only bounds how long a change
+ * made outside the application can go unnoticed.
+ * <p>
+ * Cached entities are detached and shared between requests, so they must not be modified;
+ * write paths load their own copy from the repository.
+ */
+@Service
+public class ReferenceDataService {
+
+    private static final String ALL_DEPARTMENTS = "departments";
+
+    private final DepartmentRepository departmentRepository;
+    private final CourseRepository courseRepository;
+    private final TtlCache<String, Object> cache;
+    private long generation;
+
+    public ReferenceDataService(DepartmentRepository departmentRepository,
+                                CourseRepository courseRepository,
+                                @Value("${reference-data.cache.max-size:2000}") int maxSize,
+                                @Value("${reference-data.cache.ttl:PT6H}") Duration ttl) {
+        this.departmentRepository = departmentRepository;
+        this.courseRepository = courseRepository;
+        this.cache = new TtlCache<>(maxSize, ttl);
+    }
+
+    public List<Department> getAllDepartments() {
+        return cached(ALL_DEPARTMENTS, () -> List.copyOf(departmentRepository.findAll()));
+    }
+
+    public Optional<Department> getDepartmentById(Long id) {
+        return cached("department:" + id, () -> departmentRepository.findById(id));
+    }
+
+    public Optional<Department> getDepartmentByName(String name) {
+        return cached("department-name:" + name, () -> Optional.ofNullable(departmentRepository.findByName(name)));
+    }
+
+    /**
+     * The course with its department and lecturer loaded, so callers can read them
+     * without a session.
+     */
+    public Optional<Course> getCourseById(Long id) {
+        return cached("course:" + id, () -> courseRepository.findWithDepartmentAndLecturerById(id));
+    }
+
+    /**
+     * Drops everything: course rows embed their department, so a department change
+     * affects both kinds of entry.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            generation++;
+            cache.invalidateAll();
+        }
+    }
+
+    public TtlCache.CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String key, Supplier<T> loader) {
+        Object value = cache.get(key);
+        if (value != null) {
+            return (T) value;
+        }
+        long seen;
+        synchronized (this) {
+            seen = generation;
+        }
+        T loaded = loader.get();
+        synchronized (this) {
+            // Skip the put if an invalidation ran while loading; the value may predate it
+            if (seen == generation) {
+                cache.put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+}
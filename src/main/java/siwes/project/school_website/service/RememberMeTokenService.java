@@ -0,0 +1,93 @@
+package siwes.project.school_website.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.authentication.rememberme.PersistentRememberMeToken;
+import org.springframework.security.web.authentication.rememberme.PersistentTokenRepository;
+import org.springframework.stereotype.Service;
+import siwes.project.school_website.cache.TtlCache;
+import siwes.project.school_website.entity.PersistentLogin;
+import siwes.project.school_website.repository.PersistentLoginRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Remember-me token store backed by the {@code persistent_logins} table, with a
+ * read-through cache keyed by series so a returning user normally costs no query.
+ */
+@Service
+public class RememberMeTokenService implements PersistentTokenRepository {
+
+    private final PersistentLoginRepository persistentLoginRepository;
+    private final TtlCache<String, PersistentRememberMeToken> cache;
+    private final Duration validity;
+    private final int purgeBatchSize;
+
+    public RememberMeTokenService(PersistentLoginRepository persistentLoginRepository,
+                                  @Value("${security.remember-me.cache-size:5000}") int cacheSize,
+                                  @Value("${security.remember-me.cache-ttl:PT30M}") Duration cacheTtl,
+                                  @Value("${security.remember-me.validity:P14D}") Duration validity,
+                                  @Value("${security.remember-me.purge-batch-size:500}") int purgeBatchSize) {
+        this.persistentLoginRepository = persistentLoginRepository;
+        this.cache = new TtlCache<>(cacheSize, cacheTtl);
+        this.validity = validity;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    @Override
+    public void createNewToken(PersistentRememberMeToken token) {
+        persistentLoginRepository.save(new PersistentLogin(token.getSeries(), token.getUsername(),
+                token.getTokenValue(), toLocalDateTime(token.getDate())));
+        cache.put(token.getSeries(), token);
+    }
+
+    @Override
+    public void updateToken(String series, String tokenValue, Date lastUsed) {
+        persistentLoginRepository.updateToken(series, tokenValue, toLocalDateTime(lastUsed));
+        PersistentRememberMeToken cached = cache.get(series);
+        if (cached != null) {
+            cache.put(series, new PersistentRememberMeToken(cached.getUsername(), series, tokenValue, lastUsed));
+        } else {
+            cache.invalidate(series);
+        }
+    }
+
+    @Override
+    public PersistentRememberMeToken getTokenForSeries(String seriesId) {
+        return cache.get(seriesId, series -> persistentLoginRepository.findById(series)
+                .map(login -> new PersistentRememberMeToken(login.getUsername(), login.getSeries(),
+                        login.getToken(), Date.from(login.getLastUsed().atZone(ZoneId.systemDefault()).toInstant())))
+                .orElse(null));
+    }
+
+    @Override
+    public void removeUserTokens(String username) {
+        persistentLoginRepository.deleteByUsername(username);
+        cache.invalidateIf(token -> token.getUsername().equals(username));
+    }
+
+    public Duration getValidity() {
+        return validity;
+    }
+
+    public TtlCache.CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    @Scheduled(fixedDelayString = "${security.remember-me.purge-interval:PT1H}")
+    public void purgeExpiredTokens() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(validity);
+        int deleted;
+        do {
+            deleted = persistentLoginRepository.deleteExpiredBatch(cutoff, purgeBatchSize);
+        } while (deleted == purgeBatchSize);
+        cache.purgeExpired();
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,124 @@
+package siwes.project.school_website.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import siwes.project.school_website.entity.Submission;
+import siwes.project.school_website.storage.BlobKeys;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Issues and checks short-lived download links for blob-backed submissions. The token
+ * carries the blob key, download name, principal and expiry under an HMAC-SHA256
+ * signature, so serving it needs neither a submission lookup nor an ownership query:
+ * access was decided when the page that embeds the link was rendered.
+ */
+@Service
+public class SignedDownloadService {
+
+    private static final Logger log = LoggerFactory.getLogger(SignedDownloadService.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    public static final String PATH = "/files/signed/";
+
+    private final SecretKeySpec signingKey;
+    private final Duration ttl;
+
+    public record DownloadGrant(String key, String filename, String username, Instant expiresAt) {
+    }
+
+    public SignedDownloadService(@Value("${downloads.signed-url.key:}") String key,
+                                 @Value("${downloads.signed-url.ttl:PT15M}") Duration ttl) {
+        byte[] secret;
+        if (key == null || key.isBlank()) {
+            // Links then stop working on restart and are not shared between instances
+            log.warn("downloads.signed-url.key is not set; using a random per-process signing key");
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        } else {
+            secret = key.getBytes(StandardCharsets.UTF_8);
+        }
+        this.signingKey = new SecretKeySpec(secret, ALGORITHM);
+        this.ttl = ttl;
+    }
+
+    /**
+     * A signed link to the submission's file for {@code username}, or {@code fallback} when
+     * the submission is stored under a legacy file name. {@code null} when there is no file.
+     */
+    public String downloadLink(Submission submission, String username, String fallback) {
+        String key = submission.getSubmissionContent();
+        if (key == null) {
+            return null;
+        }
+        if (!BlobKeys.isBlobKey(key)) {
+            return fallback;
+        }
+        String filename = submission.getOriginalFilename() != null ? submission.getOriginalFilename() : key;
+        return PATH + sign(key, filename, username, Instant.now().plus(ttl));
+    }
+
+    String sign(String key, String filename, String username, Instant expiresAt) {
+        String payload = key + "\n" + expiresAt.getEpochSecond() + "\n" + username + "\n" + filename;
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(mac(payloadBytes));
+    }
+
+    /**
+     * The grant behind a token, or {@code null} if it is malformed, tampered with, expired
+     * or was issued to someone else.
+     */
+    public DownloadGrant verify(String token, String username) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            payload = decoder.decode(token.substring(0, dot));
+            signature = decoder.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(mac(payload), signature)) {
+            return null;
+        }
+
+        String[] fields = new String(payload, StandardCharsets.UTF_8).split("\n", 4);
+        if (fields.length != 4 || !BlobKeys.isBlobKey(fields[0])) {
+            return null;
+        }
+        Instant expiresAt;
+        try {
+            expiresAt = Instant.ofEpochSecond(Long.parseLong(fields[1]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (expiresAt.isBefore(Instant.now()) || !fields[2].equals(username)) {
+            return null;
+        }
+        return new DownloadGrant(fields[0], fields[3], fields[2], expiresAt);
+    }
+
+    private byte[] mac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+}
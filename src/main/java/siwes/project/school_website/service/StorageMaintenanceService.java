@@ -0,0 +1,212 @@
+package siwes.project.school_website.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import siwes.project.school_website.repository.StoredBlobRepository;
+import siwes.project.school_website.repository.SubmissionRepository;
+import siwes.project.school_website.repository.UserRepository;
+import siwes.project.school_website.storage.BlobKeys;
+import siwes.project.school_website.storage.UploadLayout;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the upload directory tidy: moves files from the old flat layout into the sharded
+ * one (once, in the background after startup), and periodically deletes files that no
+ * submission, profile picture or stored blob refers to any more.
+ */
+@Service
+public class StorageMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageMaintenanceService.class);
+    private static final String MIGRATED_MARKER = ".layout-sharded";
+
+    private final UploadLayout layout;
+    private final SubmissionRepository submissionRepository;
+    private final UserRepository userRepository;
+    private final StoredBlobRepository storedBlobRepository;
+    private final Duration minAge;
+    private final int batchSize;
+    private final Duration batchPause;
+
+    private final AtomicBoolean gcRunning = new AtomicBoolean();
+    private volatile GcStats lastRun;
+
+    public record GcStats(Instant finishedAt, long scanned, long deleted, long bytesReclaimed) {
+    }
+
+    public StorageMaintenanceService(UploadLayout layout,
+                                     SubmissionRepository submissionRepository,
+                                     UserRepository userRepository,
+                                     StoredBlobRepository storedBlobRepository,
+                                     @Value("${storage.gc.min-age:PT24H}") Duration minAge,
+                                     @Value("${storage.gc.batch-size:200}") int batchSize,
+                                     @Value("${storage.gc.batch-pause:PT1S}") Duration batchPause) {
+        this.layout = layout;
+        this.submissionRepository = submissionRepository;
+        this.userRepository = userRepository;
+        this.storedBlobRepository = storedBlobRepository;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        if (Files.exists(layout.root().resolve(MIGRATED_MARKER))) {
+            return;
+        }
+        Thread thread = new Thread(this::migrateLayout, "storage-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Moves flat {@code <root>/<name>} and {@code <root>/blobs/<key>} files into their
+     * shard directories. Readers fall back to the flat path until a file has been moved,
+     * so this runs alongside normal traffic. Safe to re-run after an interruption.
+     */
+    void migrateLayout() {
+        try {
+            long moved = 0;
+            if (Files.isDirectory(layout.root())) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(layout.root(), Files::isRegularFile)) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        if (name.startsWith(".")) {
+                            continue;
+                        }
+                        // Keep variants beside their original
+                        Path target = layout.fileFor(ImageVariantService.originalName(name)).resolveSibling(name);
+                        moved += move(file, target) ? 1 : 0;
+                    }
+                }
+            }
+            if (Files.isDirectory(layout.blobsRoot())) {
+                try (DirectoryStream<Path> blobs = Files.newDirectoryStream(layout.blobsRoot(), Files::isRegularFile)) {
+                    for (Path blob : blobs) {
+                        String key = blob.getFileName().toString();
+                        if (BlobKeys.isBlobKey(key)) {
+                            moved += move(blob, layout.blobFor(key)) ? 1 : 0;
+                        }
+                    }
+                }
+            }
+            Files.createDirectories(layout.root());
+            Files.writeString(layout.root().resolve(MIGRATED_MARKER), Instant.now().toString());
+            log.info("Upload layout migration finished, {} files moved", moved);
+        } catch (IOException | RuntimeException e) {
+            log.error("Upload layout migration stopped; it will resume on next start", e);
+        }
+    }
+
+    private static boolean move(Path source, Path target) throws IOException {
+        if (Files.exists(target)) {
+            // Blobs are content-addressed and names carry an upload timestamp, so an
+            // existing target already holds these bytes
+            Files.deleteIfExists(source);
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target);
+        }
+        return true;
+    }
+
+    /**
+     * Mark-and-sweep over the sharded directories. Only files older than the minimum age
+     * are candidates, so an upload whose row is not saved yet is never mistaken for an
+     * orphan. Deletions run in batches with a pause in between to spare the disk.
+     */
+    @Scheduled(initialDelayString = "${storage.gc.initial-delay:PT30M}", fixedDelayString = "${storage.gc.interval:PT6H}")
+    public void collectGarbage() {
+        if (!gcRunning.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Instant cutoff = Instant.now().minus(minAge);
+            Set<String> referenced = markReferenced();
+
+            long[] totals = new long[3];
+            sweep(layout.filesRoot(), referenced, cutoff, totals);
+            sweep(layout.blobsRoot(), referenced, cutoff, totals);
+
+            lastRun = new GcStats(Instant.now(), totals[0], totals[1], totals[2]);
+            log.info("Storage sweep: {} files scanned, {} deleted, {} bytes reclaimed", totals[0], totals[1], totals[2]);
+        } catch (IOException | RuntimeException e) {
+            log.error("Storage sweep failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            gcRunning.set(false);
+        }
+    }
+
+    private Set<String> markReferenced() {
+        Set<String> referenced = new HashSet<>();
+        referenced.addAll(submissionRepository.findAllStoredFileNames());
+        referenced.addAll(userRepository.findAllProfilePics());
+        referenced.addAll(storedBlobRepository.findAllKeys());
+        return referenced;
+    }
+
+    private void sweep(Path base, Set<String> referenced, Instant cutoff, long[] totals) throws IOException, InterruptedException {
+        if (!Files.isDirectory(base)) {
+            return;
+        }
+        int depth = base.getNameCount() + 3;
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(base, 3)) {
+            // Only shard leaves; anything shallower is a flat file awaiting migration
+            files = walk.filter(p -> p.getNameCount() == depth && Files.isRegularFile(p)).toList();
+        }
+        int inBatch = 0;
+        for (Path file : files) {
+            totals[0]++;
+            String name = file.getFileName().toString();
+            if (referenced.contains(ImageVariantService.originalName(name))) {
+                continue;
+            }
+            try {
+                if (Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+                long size = Files.size(file);
+                if (Files.deleteIfExists(file)) {
+                    totals[1]++;
+                    totals[2] += size;
+                }
+            } catch (IOException e) {
+                log.warn("Could not reclaim {}: {}", file, e.getMessage());
+            }
+            if (++inBatch >= batchSize) {
+                inBatch = 0;
+                Thread.sleep(batchPause.toMillis());
+            }
+        }
+    }
+
+    public GcStats lastRun() {
+        return lastRun;
+    }
+}
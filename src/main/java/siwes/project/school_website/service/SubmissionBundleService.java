@@ -0,0 +1,164 @@
+package siwes.project.school_website.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import siwes.project.school_website.entity.Submission;
+import siwes.project.school_website.entity.User;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams every submission of an assignment as one ZIP, entry by entry, straight to the
+ * response. Nothing is buffered beyond a copy buffer, so memory use does not depend on
+ * class size. Bundles are written by a small pool of their own, so a burst of them can
+ * neither tie up request threads nor starve other asynchronous responses.
+ */
+@Service
+public class SubmissionBundleService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionBundleService.class);
+
+    private final SubmissionService submissionService;
+    private final ThreadPoolExecutor writers;
+    private final Duration timeout;
+
+    public SubmissionBundleService(SubmissionService submissionService,
+                                   @Value("${downloads.bundle.threads:4}") int threads,
+                                   @Value("${downloads.bundle.queue-capacity:8}") int queueCapacity,
+                                   @Value("${downloads.bundle.timeout:PT30M}") Duration timeout) {
+        this.submissionService = submissionService;
+        this.timeout = timeout;
+        AtomicInteger counter = new AtomicInteger();
+        this.writers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "submission-bundle-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * What the streaming thread needs per entry, resolved up front on the request thread
+     * (the entity graph is not available once the response is being written elsewhere).
+     */
+    public record BundleEntry(String entryName, String storageKey) {
+    }
+
+    public List<BundleEntry> entriesFor(Long assignmentId) {
+        Set<String> usedNames = new HashSet<>();
+        return submissionService.getSubmissionsForAssignment(assignmentId).stream()
+                .filter(s -> s.getSubmissionContent() != null)
+                .map(s -> new BundleEntry(uniqueName(entryName(s), usedNames), s.getSubmissionContent()))
+                .toList();
+    }
+
+    /**
+     * Starts writing the bundle on the bundle pool. Empty when the pool and its queue are
+     * full, so the caller can answer before any response headers are set.
+     */
+    public Optional<ResponseBodyEmitter> stream(List<BundleEntry> entries) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeout.toMillis());
+        try {
+            writers.execute(() -> {
+                try (OutputStream out = new BufferedOutputStream(emitterStream(emitter), 65536)) {
+                    write(entries, out);
+                } catch (IOException | RuntimeException e) {
+                    // Usually the client went away or the request timed out
+                    log.debug("Submission bundle aborted: {}", e.getMessage());
+                    emitter.completeWithError(e);
+                    return;
+                }
+                emitter.complete();
+            });
+        } catch (RejectedExecutionException e) {
+            return Optional.empty();
+        }
+        return Optional.of(emitter);
+    }
+
+    public void write(List<BundleEntry> entries, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDFs and .docx are already compressed; favour throughput over ratio
+        zip.setLevel(Deflater.BEST_SPEED);
+        byte[] buffer = new byte[16384];
+        for (BundleEntry entry : entries) {
+            zip.putNextEntry(new ZipEntry(entry.entryName()));
+            try (InputStream in = submissionService.loadFileAsResource(entry.storageKey()).getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                }
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    private static OutputStream emitterStream(ResponseBodyEmitter emitter) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                emitter.send(Arrays.copyOfRange(b, off, off + len));
+            }
+        };
+    }
+
+    private static String entryName(Submission submission) {
+        User student = submission.getStudent();
+        String owner = student.getMatricNumber() != null && !student.getMatricNumber().isBlank()
+                ? student.getMatricNumber()
+                : student.getUsername();
+        String original = submission.getOriginalFilename();
+        String extension = "";
+        if (original != null && original.lastIndexOf('.') > 0) {
+            extension = original.substring(original.lastIndexOf('.'));
+        }
+        return sanitize(owner) + sanitize(extension);
+    }
+
+    private static String uniqueName(String name, Set<String> usedNames) {
+        String candidate = name;
+        for (int i = 2; !usedNames.add(candidate); i++) {
+            int dot = name.lastIndexOf('.');
+            candidate = dot > 0 ? name.substring(0, dot) + "_" + i + name.substring(dot) : name + "_" + i;
+        }
+        return candidate;
+    }
+
+    private static String sanitize(String value) {
+        return value.replace('/', '_').replace('\\', '_');
+    }
+
+    @Override
+    public void destroy() {
+        writers.shutdown();
+    }
+}
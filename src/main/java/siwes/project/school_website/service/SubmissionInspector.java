@@ -0,0 +1,183 @@
+package siwes.project.school_website.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Identifies an uploaded document from its bytes rather than the client-supplied
+ * Content-Type, and pulls out cheap metadata (page count where it is recorded).
+ * Only PDF, legacy Word (.doc) and Word OOXML (.docx) pass.
+ */
+public class SubmissionInspector {
+
+    public static final String PDF = "application/pdf";
+    public static final String DOC = "application/msword";
+    public static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ZIP_MAGIC = {0x50, 0x4B, 0x03, 0x04};
+    private static final byte[] OLE_MAGIC = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+    private static final byte[] PDF_EOF = "%%EOF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WORD_DOCUMENT = "WordDocument\0".getBytes(StandardCharsets.UTF_16LE);
+
+    private static final int OLE_DIRECTORY_ENTRY = 128;
+    private static final int OLE_STREAM = 2;
+    private static final int APP_XML_LIMIT = 8192;
+    private static final String NOT_ALLOWED = "Only PDF and Word documents are allowed.";
+
+    private static final Pattern DOCX_PAGES = Pattern.compile("<Pages>(\\d+)</Pages>");
+
+    public record Result(boolean accepted, String detectedType, Integer pageCount, String rejectionReason) {
+
+        static Result accepted(String type, Integer pageCount) {
+            return new Result(true, type, pageCount, null);
+        }
+
+        static Result rejected(String reason) {
+            return new Result(false, null, null, reason);
+        }
+    }
+
+    public Result inspect(InputStream content) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(content, 16384);
+        in.mark(OLE_MAGIC.length);
+        byte[] header = in.readNBytes(OLE_MAGIC.length);
+        in.reset();
+
+        if (startsWith(header, PDF_MAGIC)) {
+            return inspectPdf(in);
+        }
+        if (startsWith(header, OLE_MAGIC)) {
+            return inspectOle(in);
+        }
+        if (startsWith(header, ZIP_MAGIC)) {
+            return inspectDocx(in);
+        }
+        return Result.rejected(NOT_ALLOWED);
+    }
+
+    /**
+     * Excel, PowerPoint, Outlook and installer files share the compound file format, so a
+     * .doc is only accepted if it has a {@code WordDocument} stream. Directory entries are
+     * 128 bytes and always start on a 128-byte boundary, so the file is scanned in entries
+     * rather than by following the sector chains.
+     */
+    private Result inspectOle(InputStream in) throws IOException {
+        byte[] entry = new byte[OLE_DIRECTORY_ENTRY];
+        while (in.readNBytes(entry, 0, entry.length) == entry.length) {
+            if (isWordDocumentStream(entry)) {
+                return Result.accepted(DOC, null);
+            }
+        }
+        return Result.rejected(NOT_ALLOWED);
+    }
+
+    /**
+     * Counts page objects ({@code /Type /Page}, not {@code /Pages}) while streaming, and
+     * requires an end-of-file marker so truncated uploads are caught. PDFs that keep their
+     * objects in compressed streams report no page count.
+     */
+    private Result inspectPdf(InputStream in) throws IOException {
+        byte[] buffer = new byte[16384];
+        byte[] carry = new byte[0];
+        int pages = 0;
+        boolean sawEof = false;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            byte[] window = new byte[carry.length + read];
+            System.arraycopy(carry, 0, window, 0, carry.length);
+            System.arraycopy(buffer, 0, window, carry.length, read);
+            String text = new String(window, StandardCharsets.ISO_8859_1);
+            // A match is counted in the round that contains its terminating byte, so
+            // objects split across reads are counted exactly once
+            pages += countPageObjects(text, carry.length);
+            if (indexOf(window, PDF_EOF) >= 0) {
+                sawEof = true;
+            }
+            carry = Arrays.copyOfRange(window, Math.max(0, window.length - 32), window.length);
+        }
+        if (!sawEof) {
+            return Result.rejected("The PDF appears to be truncated or corrupt.");
+        }
+        return Result.accepted(PDF, pages > 0 ? pages : null);
+    }
+
+    private Result inspectDocx(InputStream in) throws IOException {
+        boolean hasDocument = false;
+        Integer pages = null;
+        // Not closed: the caller owns the underlying stream
+        ZipInputStream zip = new ZipInputStream(in);
+        try {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals("word/document.xml")) {
+                    hasDocument = true;
+                } else if (entry.getName().equals("docProps/app.xml")) {
+                    // Only the start is needed; reading it whole would let a tiny zip inflate without bound
+                    String xml = new String(zip.readNBytes(APP_XML_LIMIT), StandardCharsets.UTF_8);
+                    Matcher matcher = DOCX_PAGES.matcher(xml);
+                    if (matcher.find()) {
+                        pages = Integer.valueOf(matcher.group(1));
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return Result.rejected("The Word document could not be read.");
+        }
+        if (!hasDocument) {
+            return Result.rejected(NOT_ALLOWED);
+        }
+        return Result.accepted(DOCX, pages);
+    }
+
+    private static int countPageObjects(String text, int newDataStart) {
+        int count = 0;
+        int index = text.indexOf("/Type");
+        while (index >= 0) {
+            int i = index + 5;
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (text.startsWith("/Page", i)) {
+                int after = i + 5;
+                if (after >= newDataStart && after < text.length() && !Character.isLetter(text.charAt(after))) {
+                    count++;
+                }
+            }
+            index = text.indexOf("/Type", index + 1);
+        }
+        return count;
+    }
+
+    /**
+     * Name (UTF-16LE, NUL-terminated), name length in bytes at offset 64, object type at 66.
+     */
+    private static boolean isWordDocumentStream(byte[] entry) {
+        int nameLength = (entry[64] & 0xFF) | (entry[65] & 0xFF) << 8;
+        return startsWith(entry, WORD_DOCUMENT) && nameLength == WORD_DOCUMENT.length && entry[66] == OLE_STREAM;
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        return data.length >= prefix.length && Arrays.equals(data, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,249 @@
+package siwes.project.school_website.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import siwes.project.school_website.entity.SubmissionStatus;
+import siwes.project.school_website.repository.SubmissionRepository;
+import siwes.project.school_website.storage.UploadLayout;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Post-upload pipeline. The upload request only stores the file and marks the submission
+ * PROCESSING; a small worker pool then verifies the file type from its magic bytes,
+ * extracts metadata and quarantines anything that is not a PDF or Word document.
+ * Results are queued and written back in JDBC batches by {@link #flushResults()}.
+ */
+@Service
+public class SubmissionProcessingService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionProcessingService.class);
+
+    private final SubmissionRepository submissionRepository;
+    private final BlobService blobService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SubmissionInspector inspector = new SubmissionInspector();
+    private final ThreadPoolExecutor workers;
+    private final Path quarantineRoot;
+    private final Duration retryAfter;
+    private final int batchSize;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<ProcessingResult> results = new ConcurrentLinkedQueue<>();
+
+    private record ProcessingResult(Long submissionId, String storageKey, long size,
+                                    SubmissionInspector.Result inspection, LocalDateTime processedAt) {
+    }
+
+    public SubmissionProcessingService(SubmissionRepository submissionRepository,
+                                       BlobService blobService,
+                                       JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       UploadLayout uploadLayout,
+                                       @Value("${submissions.processing.threads:2}") int threads,
+                                       @Value("${submissions.processing.queue-capacity:1000}") int queueCapacity,
+                                       @Value("${submissions.processing.retry-after:PT2M}") Duration retryAfter,
+                                       @Value("${submissions.processing.batch-size:200}") int batchSize) {
+        this.submissionRepository = submissionRepository;
+        this.blobService = blobService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.quarantineRoot = uploadLayout.root().resolve("quarantine");
+        this.retryAfter = retryAfter;
+        this.batchSize = batchSize;
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "submission-processing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queues a freshly stored submission. If the pool is saturated the submission simply
+     * stays PROCESSING and is picked up again by {@link #requeueStale()}.
+     */
+    public void enqueue(Long submissionId, String storageKey) {
+        if (!inFlight.add(submissionId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> process(submissionId, storageKey));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(submissionId);
+        }
+    }
+
+    private void process(Long submissionId, String storageKey) {
+        MessageDigest digest = sha256();
+        CountingInputStream counter;
+        SubmissionInspector.Result inspection;
+        try (InputStream in = new DigestInputStream(blobService.load(storageKey).getInputStream(), digest)) {
+            counter = new CountingInputStream(in);
+            inspection = inspector.inspect(counter);
+            // Drain whatever the inspector did not need so the checksum covers the whole file
+            counter.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not process submission {}: {}", submissionId, e.getMessage());
+            inFlight.remove(submissionId);
+            return;
+        }
+        if (!HexFormat.of().formatHex(digest.digest()).equals(storageKey)) {
+            inspection = new SubmissionInspector.Result(false, null, null, "The stored file failed its integrity check.");
+        }
+        results.add(new ProcessingResult(submissionId, storageKey, counter.count(), inspection, LocalDateTime.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${submissions.processing.flush-interval:PT2S}")
+    public void flushResults() {
+        List<ProcessingResult> batch = new ArrayList<>();
+        ProcessingResult result;
+        while (batch.size() < batchSize && (result = results.poll()) != null) {
+            batch.add(result);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // The storage key guard skips rows that were resubmitted while being processed
+        int[][] updated = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(
+                "UPDATE submission SET status = ?, processed_at = ?, file_size = ?, detected_type = ?, page_count = ?, " +
+                        "rejection_reason = ?, submission_content = CASE WHEN ? THEN submission_content ELSE NULL END " +
+                        "WHERE id = ? AND submission_content = ?",
+                batch, batch.size(), (ps, r) -> {
+                    SubmissionInspector.Result inspection = r.inspection();
+                    ps.setString(1, (inspection.accepted() ? SubmissionStatus.ACCEPTED : SubmissionStatus.REJECTED).name());
+                    ps.setTimestamp(2, Timestamp.valueOf(r.processedAt()));
+                    ps.setLong(3, r.size());
+                    ps.setString(4, inspection.detectedType());
+                    ps.setObject(5, inspection.pageCount(), Types.INTEGER);
+                    ps.setString(6, inspection.rejectionReason());
+                    ps.setBoolean(7, inspection.accepted());
+                    ps.setLong(8, r.submissionId());
+                    ps.setString(9, r.storageKey());
+                }));
+
+        int index = 0;
+        for (int[] chunk : updated) {
+            for (int count : chunk) {
+                ProcessingResult r = batch.get(index++);
+                inFlight.remove(r.submissionId());
+                if (count != 0 && !r.inspection().accepted()) {
+                    quarantine(r.storageKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps a copy of a rejected file for inspection, then drops the submission's reference
+     * on it so it can no longer be downloaded or bundled.
+     */
+    private void quarantine(String storageKey) {
+        try (InputStream in = blobService.load(storageKey).getInputStream()) {
+            Files.createDirectories(quarantineRoot);
+            Files.copy(in, quarantineRoot.resolve(storageKey), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not quarantine blob {}: {}", storageKey, e.getMessage());
+        }
+        blobService.release(storageKey);
+    }
+
+    /**
+     * Picks up submissions left PROCESSING by a full queue, a failed worker or a restart.
+     */
+    @Scheduled(fixedDelayString = "${submissions.processing.requeue-interval:PT1M}")
+    public void requeueStale() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retryAfter);
+        for (Object[] row : submissionRepository.findPendingProcessing(SubmissionStatus.PROCESSING, cutoff)) {
+            enqueue((Long) row[0], (String) row[1]);
+        }
+    }
+
+    public int pending() {
+        return workers.getQueue().size() + workers.getActiveCount() + results.size();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdown();
+    }
+}
@@ -3,23 +3,31 @@ package siwes.project.school_website.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.multipart.MultipartFile;
 import siwes.project.school_website.entity.Assignment;
 import siwes.project.school_website.entity.Submission;
+import siwes.project.school_website.entity.SubmissionStatus;
 import siwes.project.school_website.entity.User;
 import siwes.project.school_website.repository.AssignmentRepository;
+import siwes.project.school_website.repository.KeysetPage;
 import siwes.project.school_website.repository.SubmissionRepository;
 import siwes.project.school_website.repository.UserRepository;
+import siwes.project.school_website.storage.BlobKeys;
+import siwes.project.school_website.storage.StagedBlob;
+import siwes.project.school_website.storage.UploadLayout;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,9 +38,25 @@ public class SubmissionService {
     private final SubmissionRepository submissionRepository;
     private final AssignmentRepository assignmentRepository;
     private final UserRepository userRepository;
-    private final Path rootLocation = Paths.get("uploads");
+    private final BlobService blobService;
+    private final SubmissionProcessingService submissionProcessingService;
+    private final UploadLayout uploadLayout;
+    private final GradeStatisticsService gradeStatisticsService;
 
     public void submitAssignment(Long assignmentId, String username, MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new RuntimeException("Failed to store empty file.");
+        }
+        try (InputStream in = file.getInputStream()) {
+            submitAssignment(assignmentId, username, file.getOriginalFilename(), in);
+        }
+    }
+
+    /**
+     * Stores the content as the student's submission. Used directly by finished chunked
+     * uploads, which hand over their assembled partial file.
+     */
+    public void submitAssignment(Long assignmentId, String username, String originalFilename, InputStream content) throws IOException {
         @SuppressWarnings("null")
         Assignment assignment = assignmentRepository.findById(assignmentId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Assignment not found"));
@@ -43,27 +67,53 @@ public class SubmissionService {
         Submission submission = submissionRepository.findByStudentAndAssignment(student, assignment)
                 .orElse(new Submission());
 
-        if (file.isEmpty()) {
-            throw new RuntimeException("Failed to store empty file.");
-        }
-
-        String contentType = file.getContentType();
-        if (contentType == null || 
-                (!contentType.equals("application/pdf") && 
-                 !contentType.equals("application/msword") && 
-                 !contentType.equals("application/vnd.openxmlformats-officedocument.wordprocessingml.document"))) {
-            throw new IllegalArgumentException("Invalid file type. Only PDF and Word documents are allowed.");
-        }
-
-        Files.createDirectories(rootLocation);
-        String filename = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-        Files.copy(file.getInputStream(), rootLocation.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+        StagedBlob blob = blobService.storeAndRetain(content);
+        String previousKey = submission.getSubmissionContent();
 
         submission.setStudent(student);
         submission.setAssignment(assignment);
-        submission.setSubmissionContent(filename);
+        submission.setSubmissionContent(blob.key());
+        submission.setOriginalFilename(originalFilename);
+        // Type checks and metadata are filled in by SubmissionProcessingService
+        submission.setStatus(SubmissionStatus.PROCESSING);
+        submission.setSubmittedAt(LocalDateTime.now());
+        submission.setProcessedAt(null);
+        submission.setFileSize(blob.size());
+        submission.setDetectedType(null);
+        submission.setPageCount(null);
+        submission.setRejectionReason(null);
 
         submissionRepository.save(submission);
+        enqueueAfterCommit(submission.getId(), blob.key());
+
+        // A resubmission gives back its reference on the previous file (freed unless shared)
+        if (previousKey != null) {
+            blobService.release(previousKey);
+        }
+    }
+
+    /**
+     * A worker must not look for the row before it is visible, so inside a transaction the
+     * submission is only queued once that transaction has committed.
+     */
+    private void enqueueAfterCommit(Long submissionId, String storageKey) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submissionProcessingService.enqueue(submissionId, storageKey);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submissionProcessingService.enqueue(submissionId, storageKey);
+            }
+        });
+    }
+
+    public KeysetPage<Submission> getSubmissionPage(Long assignmentId, String cursor, int size, boolean withTotal) {
+        KeysetPage.Cursor after = KeysetPage.Cursor.decode(cursor, new KeysetPage.Cursor("", 0));
+        Slice<Submission> rows = submissionRepository.findByAssignmentAfter(assignmentId, after.id(), PageRequest.of(0, size));
+        Long total = withTotal ? submissionRepository.countByAssignmentId(assignmentId) : null;
+        return KeysetPage.of(rows, Submission::getId, Submission::getId, total);
     }
 
     public List<Submission> getSubmissionsForAssignment(Long assignmentId) {
@@ -77,26 +127,52 @@ public class SubmissionService {
         return submissionRepository.findByStudent(student);
     }
 
-    public void gradeSubmission(Long submissionId, Integer grade, String feedback) {
-        @SuppressWarnings("null")
-        Submission submission = submissionRepository.findById(submissionId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Submission not found"));
-
+    /**
+     * Writes the grade as a compare-and-set on the grade that was read, like bulk grading,
+     * so the change applied to the cached statistics is the one that actually happened. If
+     * the submission was regraded in between, this edit still wins, but the statistics of
+     * the assignment and its course are reloaded instead.
+     *
+     * @return the graded submission, with its assignment loaded
+     */
+    public Submission gradeSubmission(Long submissionId, Integer grade, String feedback) {
+        // Loads the assignment in the same query; its course id is read off the proxy
+        Submission submission = getSubmissionById(submissionId);
+        Assignment assignment = submission.getAssignment();
+        Long courseId = assignment.getCourse() != null ? assignment.getCourse().getId() : null;
+        Integer previous = submission.getGrade();
+
+        List<GradeStatisticsService.GradeChange> committed = null;
+        gradeStatisticsService.beginChange();
+        try {
+            if (submissionRepository.updateGradeIfUnchanged(submissionId, previous, grade, feedback) > 0) {
+                committed = List.of(new GradeStatisticsService.GradeChange(previous, grade));
+            } else {
+                submissionRepository.updateGrade(submissionId, grade, feedback);
+            }
+        } finally {
+            gradeStatisticsService.finishChange(assignment.getId(), courseId, committed);
+        }
         submission.setGrade(grade);
         submission.setFeedback(feedback);
-        submissionRepository.save(submission);
+        return submission;
     }
 
     public Submission getSubmissionById(Long id) {
-        @SuppressWarnings("null")
-        Submission result = submissionRepository.findById(id)
+        return submissionRepository.findWithStudentAndAssignmentById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Submission not found"));
-        return result;
     }
 
     public Resource loadFileAsResource(String filename) {
+        if (filename == null) {
+            // Rejected submissions no longer reference a file
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
+        }
+        if (BlobKeys.isBlobKey(filename)) {
+            return blobService.load(filename);
+        }
         try {
-            Path file = rootLocation.resolve(filename);
+            Path file = uploadLayout.existingFileFor(filename);
             @SuppressWarnings("null")
             Resource resource = new UrlResource(file.toUri());
             if (resource.exists() || resource.isReadable()) {
@@ -109,6 +185,18 @@ public class SubmissionService {
         }
     }
 
+    /**
+     * Hex SHA-256 of the submitted file when it is stored as a blob, otherwise {@code null}.
+     */
+    public String contentHash(Submission submission) {
+        String key = submission.getSubmissionContent();
+        return BlobKeys.isBlobKey(key) ? key : null;
+    }
+
+    public String downloadFilename(Submission submission, Resource file) {
+        return submission.getOriginalFilename() != null ? submission.getOriginalFilename() : file.getFilename();
+    }
+
     public Optional<Submission> getSubmission(Long id, String username) {
         @SuppressWarnings("null")
         Assignment assignment = assignmentRepository.findById(id).orElse(null);
@@ -2,42 +2,46 @@ package siwes.project.school_website.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import siwes.project.school_website.entity.Role;
 import siwes.project.school_website.entity.User;
 import siwes.project.school_website.entity.Department;
+import siwes.project.school_website.repository.AdminUserRow;
+import siwes.project.school_website.repository.KeysetPage;
 import siwes.project.school_website.repository.UserRepository;
-import siwes.project.school_website.repository.DepartmentRepository;
+import siwes.project.school_website.storage.BlobKeys;
+import siwes.project.school_website.storage.StagedBlob;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.time.LocalDateTime;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
-    private final DepartmentRepository departmentRepository;
+    private final ReferenceDataService referenceDataService;
     private final PasswordEncoder passwordEncoder;
     private final Optional<JavaMailSender> mailSender;
-    private final Path rootLocation = Paths.get("uploads");
+    private final CustomUserDetailsService userDetailsService;
+    private final RememberMeTokenService rememberMeTokenService;
+    private final PasswordResetTokenService passwordResetTokenService;
+    private final ImageVariantService imageVariantService;
+    private final BlobService blobService;
+    private final GradeStatisticsService gradeStatisticsService;
 
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
@@ -57,16 +61,24 @@ public class UserService {
     }
 
     public User save(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDetailsService.evict(saved.getUsername());
+        evictReferenceData(saved);
+        return saved;
     }
 
     public void updatePassword(User user, String password) {
         user.setPassword(passwordEncoder.encode(password));
         userRepository.save(user);
+        userDetailsService.evict(user.getUsername());
+        evictReferenceData(user);
+        rememberMeTokenService.removeUserTokens(user.getUsername());
+        passwordResetTokenService.revokeTokens(user);
     }
 
     public void registerUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setMatricNumber(blankToNull(user.getMatricNumber()));
         if (user.getRole() == null) {
             user.setRole(Role.STUDENT);
         }
@@ -77,19 +89,13 @@ public class UserService {
         user.setFullName(fullName);
         user.setAge(age);
         user.setLevel(level);
-        Department dept = departmentRepository.findByName(department);
+        Department dept = referenceDataService.getDepartmentByName(department).orElse(null);
         user.setDepartment(dept);
         user.setEmail(email);
         user.setPhoneNumber(phoneNumber);
-        user.setMatricNumber(matricNumber);
+        user.setMatricNumber(blankToNull(matricNumber));
 
-        if (file != null && !file.isEmpty()) {
-            Files.createDirectories(rootLocation);
-            String filename = System.currentTimeMillis() + "_profile_" + file.getOriginalFilename();
-            Files.copy(file.getInputStream(), rootLocation.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
-            user.setProfilePic(filename);
-        }
-        userRepository.save(user);
+        saveWithProfilePic(user, file);
     }
 
     public void updateLecturerProfile(User user, String fullName, String email, String phoneNumber, MultipartFile file) throws IOException {
@@ -97,27 +103,91 @@ public class UserService {
         user.setEmail(email);
         user.setPhoneNumber(phoneNumber);
 
+        saveWithProfilePic(user, file);
+    }
+
+    public void updateAdminProfile(User user, String fullName, String email, String phoneNumber, Integer age, MultipartFile file) throws IOException {
+        user.setFullName(fullName);
+        user.setEmail(email);
+        user.setPhoneNumber(phoneNumber);
+        user.setAge(age);
+
+        saveWithProfilePic(user, file);
+    }
+
+    /**
+     * Saves the user, storing a newly uploaded picture first. Each stored upload holds a
+     * reference of its own, so the previous picture's reference is given back even when the
+     * same image was uploaded again, and the new one is given back if the save fails.
+     */
+    private void saveWithProfilePic(User user, MultipartFile file) throws IOException {
+        String previousPic = user.getProfilePic();
+        String storedPic = null;
         if (file != null && !file.isEmpty()) {
-            Files.createDirectories(rootLocation);
-            String filename = System.currentTimeMillis() + "_profile_" + file.getOriginalFilename();
-            Files.copy(file.getInputStream(), rootLocation.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
-            user.setProfilePic(filename);
+            storedPic = storeProfilePic(file);
+            user.setProfilePic(storedPic);
+        }
+        try {
+            userRepository.save(user);
+        } catch (RuntimeException e) {
+            if (storedPic != null) {
+                user.setProfilePic(previousPic);
+                releaseProfilePic(storedPic);
+            }
+            throw e;
+        }
+        userDetailsService.evict(user.getUsername());
+        evictReferenceData(user);
+        if (storedPic != null) {
+            releaseProfilePic(previousPic);
         }
-        userRepository.save(user);
     }
 
-    public Resource loadProfilePic(String filename) {
+    // Matric numbers are unique when present; an empty form field means none
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    // Cached courses carry their lecturer's user row; students are never a course's lecturer
+    private void evictReferenceData(User user) {
+        if (user.getRole() != Role.STUDENT) {
+            referenceDataService.invalidate();
+        }
+    }
+
+    /**
+     * Stores a new profile picture through the blob store and builds its variants; returns
+     * the stored name ({@code <key>.<ext>}) holding one reference.
+     */
+    private String storeProfilePic(MultipartFile file) throws IOException {
+        StagedBlob blob;
+        try (InputStream in = file.getInputStream()) {
+            blob = blobService.storeAndRetain(in);
+        }
+        String extension = StringUtils.getFilenameExtension(file.getOriginalFilename());
+        String filename = blob.key() + (extension != null && extension.matches("[A-Za-z0-9]{1,5}")
+                ? "." + extension.toLowerCase(Locale.ROOT) : "");
         try {
-            Path file = rootLocation.resolve(filename);
-            Resource resource = new UrlResource(file.toUri());
-            if (resource.exists() || resource.isReadable()) {
-                return resource;
-            } else {
-                throw new RuntimeException("Could not read file: " + filename);
-            }
-        } catch (MalformedURLException e) {
-            throw new RuntimeException("Could not read file: " + filename, e);
+            imageVariantService.generateVariants(filename);
+        } catch (RuntimeException e) {
+            blobService.release(blob.key());
+            throw e;
         }
+        return filename;
+    }
+
+    /**
+     * Gives back the reference a replaced or deleted profile picture held. Legacy pictures
+     * are plain files and are left to the orphan sweep.
+     */
+    private void releaseProfilePic(String storedName) {
+        if (storedName != null) {
+            blobService.release(BlobKeys.keyOf(storedName));
+        }
+    }
+
+    public Resource loadProfilePic(String filename) {
+        return imageVariantService.loadOriginal(filename);
     }
 
     public List<User> getAllUsers() {
@@ -133,22 +203,28 @@ public class UserService {
     }
 
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        userRepository.findById(id).ifPresent(user -> {
+            rememberMeTokenService.removeUserTokens(user.getUsername());
+            // Reset tokens reference the user row, so they have to go first
+            passwordResetTokenService.revokeTokens(user);
+            userRepository.delete(user);
+            userDetailsService.evict(user.getUsername());
+            evictReferenceData(user);
+            releaseProfilePic(user.getProfilePic());
+            if (user.getRole() == Role.STUDENT) {
+                gradeStatisticsService.invalidate();
+            }
+        });
     }
 
     public List<Department> getAllDepartments() {
-        return departmentRepository.findAll();
+        return referenceDataService.getAllDepartments();
     }
 
     public String generateResetToken(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found with email: " + email));
-        
-        String token = UUID.randomUUID().toString();
-        user.setResetPasswordToken(token);
-        user.setResetPasswordTokenExpiry(LocalDateTime.now().plusHours(24));
-        userRepository.save(user);
-        return token;
+        return passwordResetTokenService.issueToken(user);
     }
 
     public void sendResetTokenEmail(String email, String resetUrl) {
@@ -164,15 +240,16 @@ public class UserService {
     }
 
     public Optional<User> getByResetPasswordToken(String token) {
-        return userRepository.findByResetPasswordToken(token)
-                .filter(u -> u.getResetPasswordTokenExpiry().isAfter(LocalDateTime.now()));
-    }
-
-    public Page<User> getAllUsers(Pageable pageable) {
-        return userRepository.findAll(pageable);
+        return passwordResetTokenService.findUserByToken(token);
     }
 
-    public Page<User> getUsersByRole(Role role, Pageable pageable) {
-        return userRepository.findByRole(role, pageable);
+    public KeysetPage<AdminUserRow> getAdminUserRows(Role role, String cursor, int size, boolean withTotal) {
+        KeysetPage.Cursor after = KeysetPage.Cursor.decode(cursor, new KeysetPage.Cursor("", 0));
+        Pageable limit = PageRequest.of(0, size);
+        Slice<AdminUserRow> rows = role != null
+                ? userRepository.findAdminRowsByRoleAfter(role, after.sortKey(), after.id(), limit)
+                : userRepository.findAdminRowsAfter(after.sortKey(), after.id(), limit);
+        Long total = withTotal ? (role != null ? userRepository.countByRole(role) : userRepository.count()) : null;
+        return KeysetPage.of(rows, AdminUserRow::getUsername, AdminUserRow::getId, total);
     }
 }
@@ -0,0 +1,109 @@
+package siwes.project.school_website.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressed blob framing. A compressed blob is stored as a fixed header (magic bytes and
+ * the original length) followed by a gzip stream, so readers can tell the two forms apart
+ * from the bytes alone and a blob can be recompressed in place without racing them.
+ * Content that happens to start with the magic bytes is always stored compressed, which
+ * keeps the rule unambiguous.
+ */
+public final class BlobCodec {
+
+    public static final String GZIP = "gzip";
+    public static final String IDENTITY = "identity";
+
+    private static final byte[] MAGIC = {0x00, 'S', 'W', 'B', 'L', 'O', 'B', 0x01};
+    static final int HEADER_SIZE = MAGIC.length + Long.BYTES;
+
+    private BlobCodec() {
+    }
+
+    /**
+     * Writes the framed, gzip-compressed form of {@code content} to {@code target} and
+     * returns the number of bytes written.
+     */
+    public static long compress(InputStream content, long originalLength, Path target, int level) throws IOException {
+        try (OutputStream out = Files.newOutputStream(target)) {
+            out.write(MAGIC);
+            out.write(ByteBuffer.allocate(Long.BYTES).putLong(originalLength).array());
+            GZIPOutputStream gzip = new GZIPOutputStream(out, 65536) {
+                {
+                    def.setLevel(level);
+                }
+            };
+            content.transferTo(gzip);
+            gzip.finish();
+        }
+        return Files.size(target);
+    }
+
+    public static boolean startsWithMagic(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return hasMagic(in.readNBytes(MAGIC.length));
+        }
+    }
+
+    /**
+     * Returns a resource that always reads as the original content: the stored resource
+     * itself, or a decompressing {@link CompressedResource} for framed blobs. Nothing is held
+     * open until the content is read. Plain files may be recompressed in between, so they
+     * are wrapped in a {@link PinnedFileResource} that copes with finding the framed form.
+     */
+    public static Resource decoded(Resource stored) throws IOException {
+        if (!stored.isFile()) {
+            // Segment records are never rewritten in place
+            byte[] header;
+            try (InputStream in = stored.getInputStream()) {
+                header = in.readNBytes(HEADER_SIZE);
+            }
+            return isFramed(header) ? compressed(stored, header) : stored;
+        }
+        Path path = stored.getFile().toPath();
+        byte[] header;
+        long size;
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            header = readHeader(file);
+            size = file.size();
+        }
+        if (isFramed(header)) {
+            // Framed files are never rewritten, only deleted
+            return compressed(stored, header);
+        }
+        return new PinnedFileResource(path, size, stored.lastModified());
+    }
+
+    static byte[] readHeader(FileChannel file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (file.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+        return Arrays.copyOf(header.array(), header.position());
+    }
+
+    private static Resource compressed(Resource stored, byte[] header) {
+        return new CompressedResource(stored, ByteBuffer.wrap(header, MAGIC.length, Long.BYTES).getLong());
+    }
+
+    static boolean isFramed(byte[] header) {
+        return header.length == HEADER_SIZE && hasMagic(header);
+    }
+
+    private static boolean hasMagic(byte[] bytes) {
+        return bytes.length >= MAGIC.length && Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+}
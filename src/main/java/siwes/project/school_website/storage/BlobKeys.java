@@ -0,0 +1,32 @@
+package siwes.project.school_website.storage;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class BlobKeys {
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern STORED_NAME = Pattern.compile("([0-9a-f]{64})(\\.[a-z0-9]{1,5})?");
+
+    private BlobKeys() {
+    }
+
+    /**
+     * Tells blob keys apart from the legacy {@code <millis>_<originalName>} upload names.
+     */
+    public static boolean isBlobKey(String value) {
+        return value != null && SHA256_HEX.matcher(value).matches();
+    }
+
+    /**
+     * The blob key behind a stored name such as {@code <key>} or {@code <key>.jpg}, or
+     * {@code null} for a legacy file name.
+     */
+    public static String keyOf(String storedName) {
+        if (storedName == null) {
+            return null;
+        }
+        Matcher matcher = STORED_NAME.matcher(storedName);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,31 @@
+package siwes.project.school_website.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Content-addressed byte storage. Blobs are keyed by the hex SHA-256 of their content,
+ * so identical uploads share one stored copy. Writing is two-phase: {@link #stage}
+ * streams the content to a temporary location while hashing it, and {@link #commit}
+ * publishes it under its key (a no-op if that key is already present). {@link #replace}
+ * swaps the stored bytes of an existing key for an equivalent encoding of the same content
+ * (see {@link BlobCodec}); readers see either the old or the new bytes, never a mix.
+ */
+public interface BlobStore {
+
+    StagedBlob stage(InputStream content) throws IOException;
+
+    void commit(StagedBlob staged) throws IOException;
+
+    void replace(StagedBlob staged) throws IOException;
+
+    void discard(StagedBlob staged);
+
+    boolean exists(String key);
+
+    Resource load(String key);
+
+    void delete(String key) throws IOException;
+}
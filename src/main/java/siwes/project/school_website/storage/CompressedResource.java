@@ -0,0 +1,76 @@
+package siwes.project.school_website.storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A blob stored in {@link BlobCodec} gzip framing. Reads as the original content; the
+ * compressed bytes are also available so downloads can pass them through as
+ * {@code Content-Encoding: gzip}.
+ */
+public class CompressedResource extends AbstractResource implements Closeable {
+
+    private final Resource stored;
+    private final long originalLength;
+
+    CompressedResource(Resource stored, long originalLength) {
+        this.stored = stored;
+        this.originalLength = originalLength;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new GZIPInputStream(getEncodedInputStream(), 65536);
+    }
+
+    public InputStream getEncodedInputStream() throws IOException {
+        InputStream in = stored.getInputStream();
+        in.skipNBytes(BlobCodec.HEADER_SIZE);
+        return in;
+    }
+
+    public long encodedLength() throws IOException {
+        return stored.contentLength() - BlobCodec.HEADER_SIZE;
+    }
+
+    public String getContentEncoding() {
+        return BlobCodec.GZIP;
+    }
+
+    @Override
+    public long contentLength() {
+        return originalLength;
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return stored.lastModified();
+    }
+
+    @Override
+    public boolean exists() {
+        return stored.exists();
+    }
+
+    @Override
+    public String getFilename() {
+        return stored.getFilename();
+    }
+
+    @Override
+    public String getDescription() {
+        return "compressed " + stored.getDescription();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (stored instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package siwes.project.school_website.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Stores each blob as a plain file named by its SHA-256 under {@code <storage.root>/blobs},
+ * fanned out by {@link UploadLayout}.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+public class LocalFileBlobStore implements BlobStore {
+
+    private final UploadLayout layout;
+    private final Path tempRoot;
+
+    public LocalFileBlobStore(UploadLayout layout) {
+        this.layout = layout;
+        this.tempRoot = layout.root().resolve("tmp");
+    }
+
+    @Override
+    public StagedBlob stage(InputStream content) throws IOException {
+        Files.createDirectories(tempRoot);
+        Path temp = Files.createTempFile(tempRoot, "upload-", ".part");
+        MessageDigest digest = sha256();
+        long size;
+        try (InputStream in = new DigestInputStream(content, digest);
+             OutputStream out = Files.newOutputStream(temp)) {
+            size = in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return new StagedBlob(HexFormat.of().formatHex(digest.digest()), size, temp);
+    }
+
+    @Override
+    public void commit(StagedBlob staged) throws IOException {
+        Path target = pathFor(staged.key());
+        if (Files.exists(target)) {
+            Files.deleteIfExists(staged.tempFile());
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(staged.tempFile(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staged.tempFile(), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void replace(StagedBlob staged) throws IOException {
+        Path target = pathFor(staged.key());
+        if (!Files.exists(target)) {
+            throw new IOException("No blob to replace: " + staged.key());
+        }
+        // rename(2) swaps the file atomically; open readers keep the old inode
+        try {
+            Files.move(staged.tempFile(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staged.tempFile(), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void discard(StagedBlob staged) {
+        try {
+            Files.deleteIfExists(staged.tempFile());
+        } catch (IOException ignored) {
+            // A leftover temp file only wastes space; it is never read back.
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(pathFor(key));
+    }
+
+    @Override
+    public Resource load(String key) {
+        Path file = pathFor(key);
+        if (!Files.isReadable(file)) {
+            throw new RuntimeException("Could not read blob: " + key);
+        }
+        return new FileSystemResource(file);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(pathFor(key));
+    }
+
+    private Path pathFor(String key) {
+        Path sharded = layout.blobFor(key);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        // Not yet moved by StorageMaintenanceService.migrateLayout()
+        Path flat = layout.flatBlobFor(key);
+        return Files.exists(flat) ? flat : sharded;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package siwes.project.school_website.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A blob file that {@link BlobCodec} found stored plain. The file is opened on first read
+ * and every read goes through that one channel. Recompression may have renamed the framed
+ * form of the same content over the path by then; that is detected when the file is opened
+ * and the content is decompressed, so this always reads as the plain bytes that were checked.
+ * Meant for one read: closing the stream closes the file.
+ */
+public class PinnedFileResource extends AbstractResource implements Closeable {
+
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+    private FileChannel channel;
+    private boolean framed;
+
+    PinnedFileResource(Path path, long size, long lastModified) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    private synchronized FileChannel channel() throws IOException {
+        if (channel == null) {
+            FileChannel opened = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                framed = BlobCodec.isFramed(BlobCodec.readHeader(opened));
+            } catch (IOException | RuntimeException e) {
+                opened.close();
+                throw e;
+            }
+            channel = opened;
+        }
+        return channel;
+    }
+
+    /**
+     * Sends {@code count} bytes from {@code position}; returns the bytes sent. Zero-copy unless
+     * the file was recompressed after it was checked, in which case it is decompressed instead.
+     */
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        FileChannel file = channel();
+        if (!framed) {
+            return file.transferTo(position, count, target);
+        }
+        InputStream in = new GZIPInputStream(Channels.newInputStream(file.position(BlobCodec.HEADER_SIZE)), 65536);
+        in.skipNBytes(position);
+        OutputStream out = Channels.newOutputStream(target);
+        long sent = 0;
+        byte[] buffer = new byte[16384];
+        while (sent < count) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, count - sent));
+            if (read < 0) {
+                break;
+            }
+            out.write(buffer, 0, read);
+            sent += read;
+        }
+        return sent;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        FileChannel file = channel();
+        InputStream raw = new InputStream() {
+            private long position = framed ? BlobCodec.HEADER_SIZE : 0;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                int read = file.read(ByteBuffer.wrap(b, off, len), position);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                PinnedFileResource.this.close();
+            }
+        };
+        return framed ? new GZIPInputStream(raw, 65536) : raw;
+    }
+
+    @Override
+    public long contentLength() {
+        return size;
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getFilename() {
+        return path.getFileName().toString();
+    }
+
+    @Override
+    public String getDescription() {
+        return "pinned file [" + path + "]";
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package siwes.project.school_website.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Packs small blobs into large append-only segment files under {@code <storage.root>/segments}
+ * instead of one file each. An in-memory index maps each key to its (segment, offset, length)
+ * and reads are served from memory-mapped segments. Blobs above
+ * {@code storage.segment.max-blob-size}, and any blob written before this backend was
+ * enabled, stay in the {@link LocalFileBlobStore} layout.
+ *
+ * <p>Record layout: magic, type (data or tombstone), 32-byte key, created-at millis, payload
+ * length, payload. A tombstone's payload is the id of the segment holding the record it
+ * deletes. The index is rebuilt by scanning the segments in order at startup; a torn record
+ * at the end of the newest segment is truncated away.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "segment")
+public class SegmentBlobStore implements BlobStore, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentBlobStore.class);
+
+    private static final int MAGIC = 0x53424c42;
+    private static final byte DATA = 1;
+    private static final byte TOMBSTONE = 2;
+    private static final int HEADER_SIZE = 4 + 1 + 32 + 8 + 4;
+
+    private final LocalFileBlobStore files;
+    private final Path segmentRoot;
+    private final long maxBlobSize;
+    private final long segmentSize;
+    private final double compactionThreshold;
+
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile Segment active;
+
+    private record Location(int segment, long offset, int length, long createdAt) {
+        long recordSize() {
+            return HEADER_SIZE + (long) length;
+        }
+    }
+
+    public SegmentBlobStore(UploadLayout layout,
+                            @Value("${storage.segment.max-blob-size:1048576}") long maxBlobSize,
+                            @Value("${storage.segment.segment-size:268435456}") long segmentSize,
+                            @Value("${storage.segment.compaction-threshold:0.5}") double compactionThreshold) throws IOException {
+        // Offsets into a mapped segment are ints
+        if (segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("storage.segment.segment-size must be at most " + Integer.MAX_VALUE);
+        }
+        this.files = new LocalFileBlobStore(layout);
+        this.segmentRoot = layout.root().resolve("segments");
+        this.maxBlobSize = maxBlobSize;
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+        open();
+    }
+
+    @Override
+    public StagedBlob stage(InputStream content) throws IOException {
+        return files.stage(content);
+    }
+
+    @Override
+    public void commit(StagedBlob staged) throws IOException {
+        if (staged.size() > maxBlobSize) {
+            files.commit(staged);
+            return;
+        }
+        if (exists(staged.key())) {
+            files.discard(staged);
+            return;
+        }
+        byte[] data = Files.readAllBytes(staged.tempFile());
+        synchronized (writeLock) {
+            if (!index.containsKey(staged.key())) {
+                Location location = append(DATA, staged.key(), System.currentTimeMillis(), ByteBuffer.wrap(data));
+                index.put(staged.key(), location);
+                segments.get(location.segment()).liveBytes.addAndGet(location.recordSize());
+            }
+        }
+        files.discard(staged);
+    }
+
+    @Override
+    public void replace(StagedBlob staged) throws IOException {
+        if (!index.containsKey(staged.key())) {
+            files.replace(staged);
+            return;
+        }
+        byte[] data = Files.readAllBytes(staged.tempFile());
+        synchronized (writeLock) {
+            Location location = append(DATA, staged.key(), System.currentTimeMillis(), ByteBuffer.wrap(data));
+            Location previous = index.put(staged.key(), location);
+            segments.get(location.segment()).liveBytes.addAndGet(location.recordSize());
+            if (previous != null) {
+                segments.get(previous.segment()).liveBytes.addAndGet(-previous.recordSize());
+            }
+        }
+        files.discard(staged);
+    }
+
+    @Override
+    public void discard(StagedBlob staged) {
+        files.discard(staged);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return index.containsKey(key) || files.exists(key);
+    }
+
+    @Override
+    public Resource load(String key) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Location location = index.get(key);
+            if (location == null) {
+                return files.load(key);
+            }
+            Segment segment = segments.get(location.segment());
+            if (segment != null) {
+                return new SegmentResource(key, segment.slice(location.offset() + HEADER_SIZE, location.length()), location.createdAt());
+            }
+            // Compaction moved the record between the two lookups; the index now has its new home
+        }
+        throw new RuntimeException("Could not read blob: " + key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        synchronized (writeLock) {
+            Location location = index.remove(key);
+            if (location != null) {
+                append(TOMBSTONE, key, System.currentTimeMillis(), ByteBuffer.allocate(4).putInt(0, location.segment()));
+                segments.get(location.segment()).liveBytes.addAndGet(-location.recordSize());
+            }
+        }
+        files.delete(key);
+    }
+
+    /**
+     * Rewrites sealed segments whose live records take up less than the threshold: live
+     * records are copied to the active segment, then the old file is deleted.
+     */
+    @Scheduled(fixedDelayString = "${storage.segment.compaction-interval:PT1H}")
+    public void compact() {
+        List<Segment> candidates = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (segment != active && segment.liveBytes.get() < segment.size * compactionThreshold) {
+                candidates.add(segment);
+            }
+        }
+        for (Segment segment : candidates) {
+            try {
+                compact(segment);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Compaction of {} failed: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    private void compact(Segment segment) throws IOException {
+        long copied = 0;
+        long position = 0;
+        while (position < segment.size) {
+            ByteBuffer header = segment.slice(position, HEADER_SIZE);
+            byte type = header.get(4);
+            String key = readKey(header);
+            long createdAt = header.getLong(37);
+            int length = header.getInt(45);
+            Location old = new Location(segment.id, position, length, createdAt);
+            synchronized (writeLock) {
+                if (type == DATA && old.equals(index.get(key))) {
+                    Location moved = append(DATA, key, createdAt, segment.slice(position + HEADER_SIZE, length));
+                    index.put(key, moved);
+                    segments.get(moved.segment()).liveBytes.addAndGet(moved.recordSize());
+                    copied += moved.recordSize();
+                } else if (type == TOMBSTONE) {
+                    // Still needed while the segment holding the deleted record exists
+                    int target = segment.slice(position + HEADER_SIZE, 4).getInt(0);
+                    if (target != segment.id && segments.containsKey(target)) {
+                        append(TOMBSTONE, key, createdAt, segment.slice(position + HEADER_SIZE, 4));
+                    }
+                }
+            }
+            position += HEADER_SIZE + (long) length;
+        }
+        synchronized (writeLock) {
+            segments.remove(segment.id);
+            segment.close();
+            Files.deleteIfExists(segment.path);
+        }
+        log.info("Compacted {}, {} bytes reclaimed", segment.path.getFileName(), segment.size - copied);
+    }
+
+    private Location append(byte type, String key, long createdAt, ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        if (active.size + HEADER_SIZE + length > segmentSize && active.size > 0) {
+            active = createSegment(active.id + 1);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).put(type).put(HexFormat.of().parseHex(key)).putLong(createdAt).putInt(length).flip();
+        long offset = active.size;
+        long position = offset;
+        while (header.hasRemaining()) {
+            position += active.channel.write(header, position);
+        }
+        ByteBuffer data = payload.duplicate();
+        while (data.hasRemaining()) {
+            position += active.channel.write(data, position);
+        }
+        // The caller indexes the record, and compaction deletes the old copy, as soon as this returns
+        active.channel.force(false);
+        active.size = position;
+        return new Location(active.id, offset, length, createdAt);
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(segmentRoot);
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(segmentRoot, "segment-*.seg")) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+        for (int i = 0; i < paths.size(); i++) {
+            Segment segment = new Segment(segmentId(paths.get(i)), paths.get(i));
+            segments.put(segment.id, segment);
+            scan(segment, i == paths.size() - 1);
+        }
+        active = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+        log.info("Segment store opened: {} segments, {} blobs", segments.size(), index.size());
+    }
+
+    private void scan(Segment segment, boolean newest) throws IOException {
+        long position = 0;
+        while (position + HEADER_SIZE <= segment.size) {
+            ByteBuffer header = segment.slice(position, HEADER_SIZE);
+            int length = header.getInt(45);
+            if (header.getInt(0) != MAGIC || length < 0 || position + HEADER_SIZE + length > segment.size) {
+                break;
+            }
+            String key = readKey(header);
+            if (header.get(4) == DATA) {
+                Location location = new Location(segment.id, position, length, header.getLong(37));
+                Location previous = index.put(key, location);
+                if (previous != null) {
+                    segments.get(previous.segment()).liveBytes.addAndGet(-previous.recordSize());
+                }
+                segment.liveBytes.addAndGet(location.recordSize());
+            } else {
+                int target = segment.slice(position + HEADER_SIZE, 4).getInt(0);
+                Location current = index.get(key);
+                if (current != null && current.segment() == target) {
+                    index.remove(key);
+                    segments.get(target).liveBytes.addAndGet(-current.recordSize());
+                }
+            }
+            position += HEADER_SIZE + (long) length;
+        }
+        if (position < segment.size) {
+            if (!newest) {
+                throw new IOException("Corrupt segment " + segment.path + " at offset " + position);
+            }
+            log.warn("Truncating torn record at the end of {} (offset {})", segment.path, position);
+            segment.channel.truncate(position);
+            segment.size = position;
+        }
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        Segment segment = new Segment(id, segmentRoot.resolve(String.format("segment-%08d.seg", id)));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private static int segmentId(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring("segment-".length(), name.length() - ".seg".length()));
+    }
+
+    private static String readKey(ByteBuffer header) {
+        byte[] key = new byte[32];
+        header.get(5, key);
+        return HexFormat.of().formatHex(key);
+    }
+
+    @Override
+    public void destroy() {
+        segments.values().forEach(Segment::close);
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicLong liveBytes = new AtomicLong();
+        private volatile long size;
+        private volatile MappedByteBuffer map;
+
+        private Segment(int id, Path path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+
+        ByteBuffer slice(long offset, int length) {
+            MappedByteBuffer current = map;
+            if (current == null || offset + length > current.capacity()) {
+                current = remap();
+            }
+            return current.slice((int) offset, length);
+        }
+
+        // The active segment grows after it is mapped; map again to cover the new records
+        private synchronized MappedByteBuffer remap() {
+            if (map == null || map.capacity() < size) {
+                try {
+                    map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                } catch (IOException e) {
+                    throw new RuntimeException("Could not map segment " + path, e);
+                }
+            }
+            return map;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Mapped buffers stay readable after the channel is closed
+            }
+        }
+    }
+
+    private static final class SegmentResource extends AbstractResource {
+        private final String key;
+        private final ByteBuffer content;
+        private final long createdAt;
+
+        private SegmentResource(String key, ByteBuffer content, long createdAt) {
+            this.key = key;
+            this.content = content;
+            this.createdAt = createdAt;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            ByteBuffer buffer = content.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (!buffer.hasRemaining()) {
+                        return -1;
+                    }
+                    int n = Math.min(len, buffer.remaining());
+                    buffer.get(b, off, n);
+                    return n;
+                }
+
+                @Override
+                public long skip(long n) {
+                    int skipped = (int) Math.min(Math.max(n, 0), buffer.remaining());
+                    buffer.position(buffer.position() + skipped);
+                    return skipped;
+                }
+
+                @Override
+                public int available() {
+                    return buffer.remaining();
+                }
+            };
+        }
+
+        @Override
+        public long contentLength() {
+            return content.remaining();
+        }
+
+        @Override
+        public long lastModified() {
+            return createdAt;
+        }
+
+        @Override
+        public String getFilename() {
+            return key;
+        }
+
+        @Override
+        public String getDescription() {
+            return "segment blob [" + key + "]";
+        }
+    }
+}
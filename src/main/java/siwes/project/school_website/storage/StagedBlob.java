@@ -0,0 +1,9 @@
+package siwes.project.school_website.storage;
+
+import java.nio.file.Path;
+
+/**
+ * Content that has been hashed and written to a temporary file but not yet published.
+ */
+public record StagedBlob(String key, long size, Path tempFile) {
+}
@@ -0,0 +1,95 @@
+package siwes.project.school_website.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Maps stored file names to paths under {@code <storage.root>}. Files are fanned out two
+ * levels deep ({@code files/ab/cd/<name>}, {@code blobs/ab/cd/<key>}) so no directory
+ * grows past a few thousand entries. Named uploads are sharded by the SHA-256 of their
+ * name, blobs by their own key.
+ */
+@Component
+public class UploadLayout {
+
+    private final Path root;
+    private final Path filesRoot;
+    private final Path blobsRoot;
+
+    public UploadLayout(@Value("${storage.root:uploads}") String root) {
+        this.root = Paths.get(root);
+        this.filesRoot = this.root.resolve("files");
+        this.blobsRoot = this.root.resolve("blobs");
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    public Path filesRoot() {
+        return filesRoot;
+    }
+
+    public Path blobsRoot() {
+        return blobsRoot;
+    }
+
+    /**
+     * Where a named upload (profile picture, legacy submission) lives.
+     */
+    public Path fileFor(String filename) {
+        checkName(filename);
+        return shard(filesRoot, sha256Hex(filename)).resolve(filename);
+    }
+
+    /**
+     * Like {@link #fileFor} but falls back to the old flat location for files the
+     * migration has not moved yet.
+     */
+    public Path existingFileFor(String filename) {
+        Path sharded = fileFor(filename);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        Path flat = root.resolve(filename);
+        return Files.exists(flat) ? flat : sharded;
+    }
+
+    public Path blobFor(String key) {
+        if (!BlobKeys.isBlobKey(key)) {
+            throw new IllegalArgumentException("Invalid blob key");
+        }
+        return shard(blobsRoot, key).resolve(key);
+    }
+
+    public Path flatBlobFor(String key) {
+        return blobsRoot.resolve(key);
+    }
+
+    private static Path shard(Path base, String hex) {
+        return base.resolve(hex.substring(0, 2)).resolve(hex.substring(2, 4));
+    }
+
+    private static void checkName(String filename) {
+        if (filename == null || filename.isEmpty() || filename.contains("/") || filename.contains("\\")
+                || filename.equals(".") || filename.equals("..")) {
+            throw new IllegalArgumentException("Invalid file name");
+        }
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+-- Indexes and constraints behind the repository queries. Tables and columns themselves
+-- are still created by Hibernate (ddl-auto=update); these scripts run right after it.
+
+-- users: login lookups, profile duplicate checks, admin listings. A blank matric number
+-- (saved by older profile forms) means none, so it must not take part in the unique index.
+UPDATE users SET matric_number = NULL WHERE btrim(matric_number) = '';
+CREATE INDEX IF NOT EXISTS idx_users_email ON users (email);
+CREATE INDEX IF NOT EXISTS idx_users_phone_number ON users (phone_number);
+CREATE UNIQUE INDEX IF NOT EXISTS uq_users_matric_number ON users (matric_number)
+    WHERE matric_number IS NOT NULL AND matric_number <> '';
+CREATE INDEX IF NOT EXISTS idx_users_role_username ON users (role, username, id);
+CREATE INDEX IF NOT EXISTS idx_users_department_role ON users (department_id, role);
+
+-- submission: one row per student and assignment; the unique index also serves findByStudent.
+-- Older releases could store a second row for the same pair. Keep the graded one, else the
+-- latest, and give back the blob references the removed rows held.
+WITH removed AS (
+    DELETE FROM submission s
+    USING (SELECT id, row_number() OVER (PARTITION BY student_id, assignment_id
+                                         ORDER BY grade IS NULL, submitted_at DESC NULLS LAST, id DESC) AS duplicate_no
+           FROM submission) ranked
+    WHERE s.id = ranked.id AND ranked.duplicate_no > 1
+    RETURNING s.submission_content
+)
+UPDATE stored_blob b SET ref_count = b.ref_count - r.refs
+FROM (SELECT submission_content, count(*) AS refs FROM removed GROUP BY submission_content) r
+WHERE b.blob_key = r.submission_content;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_submission_student_assignment ON submission (student_id, assignment_id);
+DROP INDEX IF EXISTS idx_submission_assignment;
+CREATE INDEX IF NOT EXISTS idx_submission_assignment_id ON submission (assignment_id, id);
+CREATE INDEX IF NOT EXISTS idx_submission_processing ON submission (submitted_at) WHERE status = 'PROCESSING';
+
+-- assignment: per-course listings (student dashboard) and per-creator listings (lecturer dashboard)
+DROP INDEX IF EXISTS idx_assignment_course;
+CREATE INDEX IF NOT EXISTS idx_assignment_course_due_date ON assignment (course_id, due_date);
+CREATE INDEX IF NOT EXISTS idx_assignment_created_by ON assignment (created_by_id);
+
+-- course: department and lecturer lookups
+CREATE INDEX IF NOT EXISTS idx_course_department ON course (department_id);
+CREATE INDEX IF NOT EXISTS idx_course_lecturer ON course (lecturer_id);
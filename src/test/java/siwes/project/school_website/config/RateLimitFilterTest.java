@@ -0,0 +1,49 @@
+package siwes.project.school_website.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(new MockEnvironment()
+            .withProperty("rate-limit.login.ip.capacity", "20")
+            .withProperty("rate-limit.login.identifier.capacity", "5"));
+
+    @Test
+    void oneAccountsBurstDoesNotLockOutOthersBehindTheSameAddress() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, login("10.0.0.1", "alice"));
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(429, login("10.0.0.1", "Alice "));
+        }
+
+        assertEquals(200, login("10.0.0.1", "bob"));
+        assertEquals(200, login("10.0.0.1", "carol"));
+    }
+
+    @Test
+    void addressBucketStillLimitsManyAccountsFromOneAddress() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(200, login("10.0.0.2", "user" + i));
+        }
+
+        assertEquals(429, login("10.0.0.2", "user20"));
+        assertEquals(200, login("10.0.0.3", "user20"));
+    }
+
+    private int login(String address, String username) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        request.setRemoteAddr(address);
+        request.setParameter("username", username);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,49 @@
+package siwes.project.school_website.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void rejectsOnceCapacityIsSpent_andRefillsOverTime() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 1, 1, TimeUnit.MINUTES, clock::get);
+
+        assertTrue(limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1"));
+        assertFalse(limiter.tryAcquire("10.0.0.1"));
+        assertEquals(60, limiter.secondsUntilRefill("10.0.0.1"));
+
+        // Other keys have their own bucket
+        assertTrue(limiter.tryAcquire("10.0.0.2"));
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertTrue(limiter.tryAcquire("10.0.0.1"));
+        assertFalse(limiter.tryAcquire("10.0.0.1"));
+
+        TokenBucketRateLimiter.Stats stats = limiter.stats();
+        assertEquals(5, stats.allowed());
+        assertEquals(2, stats.rejected());
+    }
+
+    @Test
+    void evictIdle_dropsOnlyFullyRefilledBuckets() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 1, 1, TimeUnit.MINUTES, clock::get);
+        limiter.tryAcquire("idle");
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        limiter.tryAcquire("active");
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        limiter.evictIdle();
+
+        assertEquals(1, limiter.stats().buckets());
+        assertEquals(1, limiter.stats().evicted());
+    }
+}
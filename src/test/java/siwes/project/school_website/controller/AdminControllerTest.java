@@ -0,0 +1,72 @@
+package siwes.project.school_website.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import siwes.project.school_website.entity.Course;
+import siwes.project.school_website.entity.Department;
+import siwes.project.school_website.service.GradeStatistics;
+import siwes.project.school_website.service.GradeStatisticsService;
+import siwes.project.school_website.service.ReferenceDataService;
+import siwes.project.school_website.service.UserService;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminControllerTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private ReferenceDataService referenceDataService;
+
+    @Mock
+    private GradeStatisticsService gradeStatisticsService;
+
+    @InjectMocks
+    private AdminController adminController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(adminController).build();
+    }
+
+    @Test
+    void viewCourseDetails_rendersTheCourseDetailsTemplate() throws Exception {
+        Department department = new Department();
+        department.setId(3L);
+        department.setName("Computer Science");
+        Course course = new Course();
+        course.setId(12L);
+        course.setName("Data Structures");
+        course.setDepartment(department);
+
+        when(referenceDataService.getCourseById(12L)).thenReturn(Optional.of(course));
+        when(userService.getStudentsByDepartment(department)).thenReturn(List.of());
+        when(gradeStatisticsService.forCourse(12L)).thenReturn(GradeStatistics.EMPTY);
+
+        mockMvc.perform(get("/admin/course/{id}", 12L))
+                .andExpect(status().isOk())
+                .andExpect(view().name("course-details"))
+                .andExpect(model().attribute("course", course))
+                .andExpect(model().attribute("students", List.of()))
+                .andExpect(model().attribute("statistics", GradeStatistics.EMPTY));
+
+        assertTrue(new ClassPathResource("templates/course-details.html").exists());
+    }
+}
@@ -54,7 +54,7 @@ class LecturerControllerTest {
         mockSubmission.setId(submissionId);
         mockSubmission.setAssignment(mockAssignment);
 
-        when(submissionService.getSubmissionById(submissionId)).thenReturn(mockSubmission);
+        when(submissionService.gradeSubmission(submissionId, grade, feedback)).thenReturn(mockSubmission);
 
         mockMvc.perform(post("/lecturer/submission/{id}/grade", submissionId)
                 .param("grade", String.valueOf(grade))
@@ -63,6 +63,6 @@ class LecturerControllerTest {
                 .andExpect(redirectedUrl("/lecturer/assignment/" + assignmentId + "/submissions?graded"));
 
         verify(submissionService, times(1)).gradeSubmission(submissionId, grade, feedback);
-        verify(submissionService, times(1)).getSubmissionById(submissionId);
+        verify(submissionService, never()).getSubmissionById(any());
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package siwes.project.school_website.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void next_keepsLineBreaksInsideQuotedFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\"one\r\ntwo\",\"three\rfour\",\"five\nsix\"\r\nnext,\"say \"\"hi\"\"\"\n"));
+
+        assertEquals(List.of("one\r\ntwo", "three\rfour", "five\nsix"), reader.next());
+        assertEquals(List.of("next", "say \"hi\""), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_acceptsCrLfAndBareCrOrLfLineEndings() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\r\nc\rd\n\ne"));
+
+        assertEquals(List.of("a", "b"), reader.next());
+        assertEquals(List.of("c"), reader.next());
+        assertEquals(List.of("d"), reader.next());
+        assertEquals(List.of(""), reader.next());
+        assertEquals(List.of("e"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_skipsLeadingByteOrderMarkOnly() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\uFEFFmatric_number,grade\r\n\uFEFFx,1\r\n"));
+
+        assertEquals(List.of("matric_number", "grade"), reader.next());
+        assertEquals(List.of("\uFEFFx", "1"), reader.next());
+    }
+
+    @Test
+    void next_rejectsUnclosedQuote() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("MAT/001,80\nMAT/002,\"75,\n"));
+
+        assertEquals(List.of("MAT/001", "80"), reader.next());
+        assertThrows(CsvReader.MalformedCsvException.class, reader::next);
+    }
+}
@@ -0,0 +1,49 @@
+package siwes.project.school_website.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvWriterTest {
+
+    @Test
+    void field_quotesOnlyWhenNeeded() throws IOException {
+        StringWriter out = new StringWriter();
+        new CsvWriter(out)
+                .field("plain").field("a,b").field("say \"hi\"").field((String) null).field(-1204L).field((Integer) null)
+                .endRecord();
+
+        assertEquals("plain,\"a,b\",\"say \"\"hi\"\"\",,-1204,\r\n", out.toString());
+    }
+
+    @Test
+    void output_readsBackUnchanged() throws IOException {
+        List<String> fields = List.of("MAT/001", "Line one\r\nline two", "\"quoted\"", "", "\u1ECCl\u00E1, Ad\u00E9");
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        writer.record(fields.toArray(String[]::new));
+        writer.field(Long.MIN_VALUE).field(0L).endRecord();
+
+        CsvReader reader = new CsvReader(new StringReader(out.toString()));
+        assertEquals(fields, reader.next());
+        assertEquals(List.of(String.valueOf(Long.MIN_VALUE), "0"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void field_keepsSpreadsheetsFromRunningTextAsFormulas() throws IOException {
+        List<String> fields = List.of("=HYPERLINK(\"http://x\")", "+1", "-", "@SUM(A1)", "\tx", "=1,2", "a=b");
+        StringWriter out = new StringWriter();
+        new CsvWriter(out).record(fields.toArray(String[]::new));
+
+        assertEquals("\"'=HYPERLINK(\"\"http://x\"\")\",'+1,'-,'@SUM(A1),'\tx,\"'=1,2\",a=b\r\n", out.toString());
+        List<String> read = new CsvReader(new StringReader(out.toString())).next();
+        assertEquals(List.of("=HYPERLINK(\"http://x\")", "+1", "-", "@SUM(A1)", "\tx", "=1,2", "a=b"),
+                read.stream().map(CsvReader::unguarded).toList());
+    }
+}
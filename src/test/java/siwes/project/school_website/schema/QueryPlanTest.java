@@ -0,0 +1,315 @@
+package siwes.project.school_website.schema;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import siwes.project.school_website.config.SchemaMigrationConfig;
+import siwes.project.school_website.entity.Assignment;
+import siwes.project.school_website.entity.Department;
+import siwes.project.school_website.entity.Role;
+import siwes.project.school_website.entity.User;
+import siwes.project.school_website.repository.AssignmentRepository;
+import siwes.project.school_website.repository.DepartmentRepository;
+import siwes.project.school_website.repository.SubmissionRepository;
+import siwes.project.school_website.repository.UserRepository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Calls the methods of UserRepository, SubmissionRepository and AssignmentRepository against
+ * the schema Hibernate generates from the entities, with the migrations applied and the
+ * tables seeded. Every statement they send is captured with its parameters and explained,
+ * and the test fails if the planner falls back to a sequential scan of a large table.
+ * <p>
+ * Starts PostgreSQL in a container, so it needs Docker; it is skipped where Docker is missing.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SchemaMigrationConfig.class, QueryPlanTest.CapturingDataSource.class})
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryPlanTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final Set<String> LARGE_TABLES = Set.of("users", "submission", "assignment");
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+    private static final List<Query> captured = new CopyOnWriteArrayList<>();
+    private static boolean seeded;
+
+    record Query(String sql, Map<Integer, Object> parameters) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @BeforeEach
+    void seed() {
+        if (seeded) {
+            return;
+        }
+        jdbc.execute("INSERT INTO department (id, name) SELECT i, 'Department ' || i FROM generate_series(1, 50) i");
+        // 49,000 students, 900 lecturers, 100 admins
+        jdbc.execute("INSERT INTO users (id, username, password, full_name, role, department_id, email, phone_number, matric_number) " +
+                "SELECT i, 'user' || i, 'x', 'User ' || i, " +
+                "CASE WHEN i <= 49000 THEN 'STUDENT' WHEN i <= 49900 THEN 'LECTURER' ELSE 'ADMIN' END, " +
+                "1 + i % 50, 'user' || i || '@example.com', '080' || lpad(i::text, 8, '0'), " +
+                "CASE WHEN i <= 49000 THEN 'MAT/' || i END FROM generate_series(1, 50000) i");
+        jdbc.execute("INSERT INTO course (id, name, department_id, course_code, credit_units, lecturer_id) " +
+                "SELECT i, 'Course ' || i, 1 + i % 50, 'C' || i, 3, 49001 + i % 900 FROM generate_series(1, 1000) i");
+        jdbc.execute("INSERT INTO assignment (id, title, description, due_date, created_by_id, department_id, course_id) " +
+                "SELECT i, 'Assignment ' || i, 'Description', DATE '2025-01-01' + i % 365, 49001 + i % 900, " +
+                "1 + i % 50, 1 + i % 1000 FROM generate_series(1, 12500) i");
+        // 200,000 submissions, unique per (student, assignment)
+        jdbc.execute("INSERT INTO submission (id, student_id, assignment_id, submission_content, grade, status, submitted_at) " +
+                "SELECT s + 1, 1 + s % 49000, 1 + (s / 49000) * 2500 + s % 2500, md5(s::text), " +
+                "CASE WHEN s % 3 = 0 THEN 70 END, " +
+                "CASE WHEN s % 1000 = 0 THEN 'PROCESSING' ELSE 'ACCEPTED' END, " +
+                "TIMESTAMP '2025-01-01' + s * INTERVAL '1 minute' FROM generate_series(0, 199999) s");
+        jdbc.execute("ANALYZE");
+        seeded = true;
+    }
+
+    @Test
+    void userRepositoryQueriesUseIndexes() {
+        Department department = departmentRepository.findById(7L).orElseThrow();
+
+        assertIndexed("findByUsername", () -> userRepository.findByUsername("user4242"));
+        assertIndexed("findByEmail", () -> userRepository.findByEmail("user4242@example.com"));
+        assertIndexed("findByPhoneNumber", () -> userRepository.findByPhoneNumber("08000004242"));
+        assertIndexed("findByMatricNumber", () -> userRepository.findByMatricNumber("MAT/4242"));
+        assertIndexed("findByLoginIdentifier", () -> userRepository.findByLoginIdentifier("user4242"));
+        assertIndexed("findByRole", () -> userRepository.findByRole(Role.ADMIN));
+        assertIndexed("findByRole(pageable)", () -> userRepository.findByRole(Role.ADMIN, PageRequest.of(0, 5)));
+        assertIndexed("countByRole", () -> userRepository.countByRole(Role.ADMIN));
+        assertIndexed("findByDepartmentAndRole", () -> userRepository.findByDepartmentAndRole(department, Role.STUDENT));
+        assertIndexed("findAdminRowsByRoleAfter",
+                () -> userRepository.findAdminRowsByRoleAfter(Role.ADMIN, "user49950", 49950, PageRequest.of(0, 20)));
+    }
+
+    @Test
+    void submissionRepositoryQueriesUseIndexes() {
+        User student = userRepository.findById(4242L).orElseThrow();
+        Assignment assignment = assignmentRepository.findById(1742L).orElseThrow();
+
+        assertIndexed("findByStudentAndAssignment", () -> submissionRepository.findByStudentAndAssignment(student, assignment));
+        assertIndexed("findByAssignment", () -> submissionRepository.findByAssignment(assignment));
+        assertIndexed("findByStudent", () -> submissionRepository.findByStudent(student));
+        assertIndexed("countByAssignmentId", () -> submissionRepository.countByAssignmentId(1742L));
+        assertIndexed("findWithStudentAndAssignmentById", () -> submissionRepository.findWithStudentAndAssignmentById(4242L));
+        assertIndexed("findByAssignmentAfter",
+                () -> submissionRepository.findByAssignmentAfter(1742L, 0, PageRequest.of(0, 50)));
+    }
+
+    @Test
+    void assignmentRepositoryQueriesUseIndexes() {
+        Department department = departmentRepository.findById(7L).orElseThrow();
+
+        assertIndexed("findByCourse_Department", () -> assignmentRepository.findByCourse_Department(department));
+        assertIndexed("findByCourseId", () -> assignmentRepository.findByCourseId(42L));
+        assertIndexed("findWithOwnersById", () -> assignmentRepository.findWithOwnersById(42L));
+    }
+
+    @Test
+    void migrationClearsBlankMatricNumbersAndDuplicateSubmissions() throws Exception {
+        String key = "ab".repeat(32);
+        jdbc.execute("DROP INDEX uq_users_matric_number");
+        jdbc.execute("DROP INDEX uq_submission_student_assignment");
+        jdbc.execute("DELETE FROM schema_migration");
+        jdbc.update("INSERT INTO users (id, username, password, full_name, role, matric_number) VALUES " +
+                "(90001, 'blank1', 'x', 'Blank One', 'STUDENT', ''), (90002, 'blank2', 'x', 'Blank Two', 'STUDENT', '  ')");
+        // Student 90001 submitted assignment 1 three times; the graded copy is the one to keep
+        jdbc.update("INSERT INTO submission (id, student_id, assignment_id, submission_content, grade, status, submitted_at) VALUES " +
+                "(900001, 90001, 1, ?, 65, 'ACCEPTED', TIMESTAMP '2025-03-01'), " +
+                "(900002, 90001, 1, ?, NULL, 'ACCEPTED', TIMESTAMP '2025-03-02'), " +
+                "(900003, 90001, 1, ?, NULL, 'ACCEPTED', TIMESTAMP '2025-03-03')", key, key, key);
+        jdbc.update("INSERT INTO stored_blob (blob_key, size, codec, stored_size, ref_count, created_at) " +
+                "VALUES (?, 10, 'identity', 10, 3, now())", key);
+
+        new SchemaMigrator(dataSource, "classpath:db/migration").migrate();
+
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM users WHERE id IN (90001, 90002) AND matric_number IS NOT NULL", Integer.class));
+        assertEquals(List.of(900001L), jdbc.queryForList("SELECT id FROM submission WHERE student_id = 90001", Long.class));
+        assertEquals(1, jdbc.queryForObject("SELECT ref_count FROM stored_blob WHERE blob_key = ?", Integer.class, key));
+        assertEquals(2, jdbc.queryForObject("SELECT count(*) FROM pg_indexes WHERE indexname IN " +
+                "('uq_users_matric_number', 'uq_submission_student_assignment')", Integer.class));
+    }
+
+    private void assertIndexed(String method, Runnable call) {
+        captured.clear();
+        call.run();
+        assertFalse(captured.isEmpty(), method + " sent no query");
+        for (Query query : List.copyOf(captured)) {
+            List<String> plan = explain(query);
+            for (String line : plan) {
+                Matcher matcher = SEQ_SCAN.matcher(line);
+                if (matcher.find() && LARGE_TABLES.contains(matcher.group(1))) {
+                    fail(method + " scans " + matcher.group(1) + " sequentially:\n" + query.sql() + "\n" + String.join("\n", plan));
+                }
+            }
+        }
+    }
+
+    // Prepared with the values the repository bound, so the plan is the one the driver gets
+    private List<String> explain(Query query) {
+        return jdbc.execute((ConnectionCallback<List<String>>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PREPARE plan_query AS " + numberParameters(query.sql()));
+                try {
+                    List<String> plan = new ArrayList<>();
+                    try (ResultSet rows = statement.executeQuery("EXPLAIN EXECUTE plan_query" + arguments(query))) {
+                        while (rows.next()) {
+                            plan.add(rows.getString(1));
+                        }
+                    }
+                    return plan;
+                } finally {
+                    statement.execute("DEALLOCATE plan_query");
+                }
+            }
+        });
+    }
+
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    private static String arguments(Query query) {
+        if (query.parameters().isEmpty()) {
+            return "";
+        }
+        List<String> literals = new ArrayList<>();
+        for (Object value : query.parameters().values()) {
+            if (value == null) {
+                literals.add("NULL");
+            } else if (value instanceof Number || value instanceof Boolean) {
+                literals.add(value.toString());
+            } else {
+                literals.add("'" + value.toString().replace("'", "''") + "'");
+            }
+        }
+        return "(" + String.join(", ", literals) + ")";
+    }
+
+    /**
+     * Wraps the data source so every prepared statement's SQL and bound parameters are
+     * recorded when it runs.
+     */
+    @TestConfiguration
+    static class CapturingDataSource {
+
+        @Bean
+        static BeanPostProcessor capturingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? proxy(DataSource.class, dataSource, (target, method, args) -> {
+                        Object result = invoke(target, method, args);
+                        return result instanceof Connection connection ? capturing(connection) : result;
+                    }) : bean;
+                }
+            };
+        }
+
+        private static Connection capturing(Connection connection) {
+            return proxy(Connection.class, connection, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                    return capturing(statement, (String) args[0]);
+                }
+                return result;
+            });
+        }
+
+        private static PreparedStatement capturing(PreparedStatement statement, String sql) {
+            Map<Integer, Object> parameters = new TreeMap<>();
+            return proxy(PreparedStatement.class, statement, (target, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    parameters.put(index, name.equals("setNull") ? null : args[1]);
+                } else if ((name.equals("executeQuery") || name.equals("execute")) && (args == null || args.length == 0)) {
+                    captured.add(new Query(sql, new TreeMap<>(parameters)));
+                }
+                return invoke(target, method, args);
+            });
+        }
+
+        private interface Handler<T> {
+            Object handle(T target, Method method, Object[] args) throws Throwable;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+            InvocationHandler invocation = (proxy, method, args) -> handler.handle(target, method, args);
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocation);
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
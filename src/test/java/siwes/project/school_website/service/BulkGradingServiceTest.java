@@ -0,0 +1,161 @@
+package siwes.project.school_website.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkGradingServiceTest {
+
+    private static final Long ASSIGNMENT_ID = 7L;
+    private static final String NOT_FOUND = "No submission for this assignment";
+    private static final String BAD_GRADE = "Grade must be a whole number from 0 to 100";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private GradeStatisticsService gradeStatisticsService;
+
+    private BulkGradingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BulkGradingService(jdbcTemplate, transactionTemplate, gradeStatisticsService, 500);
+    }
+
+    private void stubRoster() {
+        // Submission id, matric number, grade, feedback
+        List<Object[]> roster = List.of(
+                new Object[]{1L, "MAT/001", null, null},
+                new Object[]{2L, "MAT/002", 70, "Good"},
+                new Object[]{3L, "MAT/003", 55, null});
+        when(jdbcTemplate.query(startsWith("SELECT s.id, u.matric_number"), any(RowMapper.class), eq(ASSIGNMENT_ID)))
+                .thenAnswer(invocation -> {
+                    RowMapper<?> mapper = invocation.getArgument(1);
+                    List<Object> rows = new ArrayList<>();
+                    for (Object[] row : roster) {
+                        ResultSet rs = mock(ResultSet.class);
+                        when(rs.getLong(1)).thenReturn((Long) row[0]);
+                        when(rs.getString(2)).thenReturn((String) row[1]);
+                        when(rs.getObject(3, Integer.class)).thenReturn((Integer) row[2]);
+                        when(rs.getString(4)).thenReturn((String) row[3]);
+                        rows.add(mapper.mapRow(rs, rows.size()));
+                    }
+                    return rows;
+                });
+    }
+
+    @Test
+    void importCsv_reportsBadRowsAndSkipsBlankOrUnchangedOnes() throws IOException {
+        stubRoster();
+        String csv = "Matric Number,Grade,Feedback\r\n" +
+                "MAT/001,101,\r\n" +
+                "MAT/404,50,\r\n" +
+                "mat/002 ,70,\r\n" +
+                ",,\r\n" +
+                "MAT/003,,Later\r\n";
+
+        BulkGradingService.Result result = service.importCsv(ASSIGNMENT_ID, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(0, result.updated());
+        assertEquals(2, result.skipped());
+        assertEquals(List.of(
+                new BulkGradingService.RowError(2, "MAT/001", BAD_GRADE),
+                new BulkGradingService.RowError(3, "MAT/404", NOT_FOUND)), result.errors());
+        verifyNoInteractions(transactionTemplate, gradeStatisticsService);
+    }
+
+    @Test
+    void importCsv_rejectsTheWholeFileWithoutRequiredColumnsOrWithAnUnclosedQuote() throws IOException {
+        BulkGradingService.Result noGrade = service.importCsv(ASSIGNMENT_ID,
+                new ByteArrayInputStream("matric_number,score\nMAT/001,80\n".getBytes(StandardCharsets.UTF_8)));
+        BulkGradingService.Result unclosed = service.importCsv(ASSIGNMENT_ID,
+                new ByteArrayInputStream("matric_number,grade\nMAT/001,80\nMAT/002,\"75\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, noGrade.errors().size());
+        assertEquals(1, noGrade.errors().get(0).row());
+        assertEquals(1, unclosed.errors().size());
+        assertEquals(3, unclosed.errors().get(0).row());
+        assertEquals(0, unclosed.updated());
+        verifyNoInteractions(jdbcTemplate, transactionTemplate);
+    }
+
+    @Test
+    void gradeGrid_writesValidRowsAndReportsDuplicatesForeignIdsAndLostUpdates() {
+        stubRoster();
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(ASSIGNMENT_ID))).thenReturn(List.of(3L));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        // The second change finds its submission regraded by someone else
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), eq(500), any())).thenReturn(new int[][]{{1, 0}});
+
+        BulkGradingService.Result result = service.gradeGrid(ASSIGNMENT_ID, List.of(
+                new BulkGradingService.GradeRow(1, "1", "80", "Well done"),
+                new BulkGradingService.GradeRow(2, "2", "65", null),
+                new BulkGradingService.GradeRow(3, "1", "81", null),
+                new BulkGradingService.GradeRow(4, "x", "50", null),
+                new BulkGradingService.GradeRow(5, "999", "50", null),
+                new BulkGradingService.GradeRow(6, "3", "55", null)));
+
+        assertEquals(1, result.updated());
+        assertEquals(1, result.skipped());
+        assertEquals(List.of(
+                new BulkGradingService.RowError(2, "2", "Submission was regraded or removed in the meantime; reload and try again"),
+                new BulkGradingService.RowError(3, "1", "Submission is graded more than once in this upload"),
+                new BulkGradingService.RowError(4, "x", NOT_FOUND),
+                new BulkGradingService.RowError(5, "999", NOT_FOUND)), result.errors());
+        verify(gradeStatisticsService).beginChange();
+        verify(gradeStatisticsService).finishChange(ASSIGNMENT_ID, 3L, List.of(new GradeStatisticsService.GradeChange(null, 80)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void gradeGrid_treatsEmptyFeedbackBoxesAsNoFeedback() throws SQLException {
+        stubRoster();
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(ASSIGNMENT_ID))).thenReturn(List.of(3L));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), eq(500), any())).thenReturn(new int[][]{{1}});
+
+        BulkGradingService.Result result = service.gradeGrid(ASSIGNMENT_ID, List.of(
+                new BulkGradingService.GradeRow(1, "2", "70", ""),
+                new BulkGradingService.GradeRow(2, "3", "55", "")));
+
+        assertEquals(1, result.updated());
+        assertEquals(1, result.skipped());
+        ArgumentCaptor<List<Object>> changes = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), changes.capture(), eq(500), setter.capture());
+        assertEquals(1, changes.getValue().size());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, changes.getValue().get(0));
+        verify(ps).setString(2, null);
+        verify(ps).setLong(3, 2L);
+    }
+}
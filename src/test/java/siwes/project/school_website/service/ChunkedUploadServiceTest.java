@@ -0,0 +1,162 @@
+package siwes.project.school_website.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import siwes.project.school_website.entity.UploadSession;
+import siwes.project.school_website.exception.UploadOffsetMismatchException;
+import siwes.project.school_website.repository.AssignmentRepository;
+import siwes.project.school_website.repository.UploadSessionRepository;
+import siwes.project.school_website.storage.UploadLayout;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChunkedUploadServiceTest {
+
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private SubmissionService submissionService;
+
+    @TempDir
+    Path root;
+
+    private final Map<String, UploadSession> sessions = new HashMap<>();
+    private ChunkedUploadService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ChunkedUploadService(uploadSessionRepository, assignmentRepository, submissionService,
+                new UploadLayout(root.toString()), 1000, 100, Duration.ofHours(24));
+        lenient().when(assignmentRepository.existsById(7L)).thenReturn(true);
+        lenient().when(uploadSessionRepository.save(any())).thenAnswer(invocation -> {
+            UploadSession session = invocation.getArgument(0);
+            sessions.put(session.getId(), session);
+            return session;
+        });
+        lenient().when(uploadSessionRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(sessions.get(invocation.<String>getArgument(0))));
+        lenient().doAnswer(invocation -> sessions.remove(invocation.<String>getArgument(0)))
+                .when(uploadSessionRepository).deleteById(anyString());
+    }
+
+    @Test
+    void append_rejectsAChunkThatDoesNotStartAtTheCommittedOffset() throws IOException {
+        String id = service.start("ada", 7L, "report.pdf", 10).uploadId();
+        service.append(id, "ada", 0, chunk("hello"));
+
+        UploadOffsetMismatchException e = assertThrows(UploadOffsetMismatchException.class,
+                () -> service.append(id, "ada", 3, chunk("world")));
+
+        assertEquals(5, e.getCommittedOffset());
+        assertEquals("hello", Files.readString(partial(id)));
+    }
+
+    @Test
+    void append_resumesFromTheBytesThatArrivedBeforeAConnectionDropped() throws IOException {
+        String id = service.start("ada", 7L, "report.pdf", 10).uploadId();
+        InputStream dropped = new InputStream() {
+            private int sent;
+
+            @Override
+            public int read() throws IOException {
+                if (sent == 3) {
+                    throw new IOException("Connection reset");
+                }
+                return "hel".charAt(sent++);
+            }
+        };
+
+        StringBuilder submitted = new StringBuilder();
+        doAnswer(invocation -> submitted.append(new String(invocation.<InputStream>getArgument(3).readAllBytes(),
+                StandardCharsets.US_ASCII))).when(submissionService).submitAssignment(eq(7L), eq("ada"), eq("report.pdf"), any());
+
+        assertThrows(IOException.class, () -> service.append(id, "ada", 0, dropped));
+        assertEquals(3, service.status(id, "ada").offset());
+        service.append(id, "ada", 3, chunk("loworld"));
+        service.finish(id, "ada");
+
+        assertEquals("helloworld", submitted.toString());
+        assertFalse(Files.exists(partial(id)));
+        assertTrue(sessions.isEmpty());
+    }
+
+    @Test
+    void finish_rejectsAnIncompleteUpload() throws IOException {
+        String id = service.start("ada", 7L, "report.pdf", 10).uploadId();
+        service.append(id, "ada", 0, chunk("hello"));
+
+        UploadOffsetMismatchException e = assertThrows(UploadOffsetMismatchException.class, () -> service.finish(id, "ada"));
+
+        assertEquals(5, e.getCommittedOffset());
+        verifyNoInteractions(submissionService);
+    }
+
+    @Test
+    void expireIdleUploads_removesIdleSessionsAndTheirFiles() throws IOException {
+        String id = service.start("ada", 7L, "report.pdf", 10).uploadId();
+        sessions.get(id).setLastActivity(LocalDateTime.now().minusDays(2));
+        when(uploadSessionRepository.findIdleIds(any(), anyInt())).thenReturn(List.of(id));
+
+        service.expireIdleUploads();
+
+        assertFalse(Files.exists(partial(id)));
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.append(id, "ada", 0, chunk("hello")));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    }
+
+    @Test
+    void expireIdleUploads_keepsASessionTouchedSinceItWasListed() throws IOException {
+        String id = service.start("ada", 7L, "report.pdf", 10).uploadId();
+        when(uploadSessionRepository.findIdleIds(any(), anyInt())).thenReturn(List.of(id));
+
+        service.expireIdleUploads();
+
+        verify(uploadSessionRepository, never()).deleteById(any());
+        assertEquals(5, service.append(id, "ada", 0, chunk("hello")).offset());
+    }
+
+    @Test
+    void status_reportsAMissingPartialFileAsAnExpiredUpload() throws IOException {
+        String id = service.start("ada", 7L, "report.pdf", 10).uploadId();
+        Files.delete(partial(id));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> service.status(id, "ada"));
+
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    }
+
+    private Path partial(String id) {
+        return root.resolve("partial").resolve(id + ".part");
+    }
+
+    private static InputStream chunk(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,123 @@
+package siwes.project.school_website.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import siwes.project.school_website.entity.Assignment;
+import siwes.project.school_website.entity.Course;
+import siwes.project.school_website.entity.Department;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the exports against PostgreSQL, with a fetch size of 2 so every export reads its
+ * cursor in several round trips. Needs Docker; skipped where it is missing.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CsvExportServiceTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static boolean seeded;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CsvExportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CsvExportService(dataSource, transactionManager, 2, 1024);
+        if (seeded) {
+            return;
+        }
+        jdbc.execute("INSERT INTO department (id, name) VALUES (1, 'Computer Science'), (2, 'Physics')");
+        jdbc.execute("INSERT INTO users (id, username, password, full_name, role, department_id, matric_number) VALUES " +
+                "(1, 'ada', 'x', 'Ada', 'STUDENT', 1, 'MAT/001'), " +
+                "(2, 'eve', 'x', '=HYPERLINK(\"http://x\")', 'STUDENT', 1, 'MAT/002'), " +
+                "(3, 'idle', 'x', 'No Work', 'STUDENT', 1, 'MAT/003'), " +
+                "(4, 'lecturer', 'x', 'Lecturer', 'LECTURER', 1, NULL), " +
+                "(5, 'other', 'x', 'Other Department', 'STUDENT', 2, 'MAT/004')");
+        jdbc.execute("INSERT INTO course (id, name, department_id, course_code, credit_units, lecturer_id) VALUES " +
+                "(1, 'Algorithms', 1, 'CSC301', 3, 4), (2, 'Networks', 1, 'CSC302', 3, 4)");
+        // Due date order puts assignment 11 in the first grade column
+        jdbc.execute("INSERT INTO assignment (id, title, description, due_date, created_by_id, department_id, course_id) VALUES " +
+                "(10, 'Second', 'd', DATE '2025-02-01', 4, 1, 1), " +
+                "(11, 'First', 'd', DATE '2025-01-01', 4, 1, 1), " +
+                "(12, 'Elsewhere', 'd', DATE '2025-01-15', 4, 1, 2)");
+        jdbc.execute("INSERT INTO submission (id, student_id, assignment_id, submission_content, grade, feedback, status, submitted_at) VALUES " +
+                "(100, 1, 11, 'a', 70, NULL, 'ACCEPTED', TIMESTAMP '2025-01-01 10:00'), " +
+                "(101, 1, 10, 'b', 80, NULL, 'ACCEPTED', TIMESTAMP '2025-02-01 10:00'), " +
+                "(102, 2, 10, 'c', 55, '+1 see me', 'ACCEPTED', TIMESTAMP '2025-02-01 11:00'), " +
+                "(103, 2, 12, 'd', 99, NULL, 'ACCEPTED', TIMESTAMP '2025-01-15 10:00')");
+        seeded = true;
+    }
+
+    @Test
+    void courseGradebook_writesOneRowPerStudentWithGradesInTheirColumns() throws IOException {
+        String csv = body(service.courseGradebook(course(1L), false));
+
+        assertEquals("Matric Number,Full Name,First,Second\r\n" +
+                "MAT/001,Ada,70,80\r\n" +
+                "MAT/002,\"'=HYPERLINK(\"\"http://x\"\")\",,55\r\n" +
+                "MAT/003,No Work,,\r\n", csv);
+    }
+
+    @Test
+    void assignmentGradebook_guardsStudentTextAgainstFormulas() throws IOException {
+        Assignment assignment = new Assignment();
+        assignment.setId(10L);
+        assignment.setCourse(course(1L));
+
+        String csv = body(service.assignmentGradebook(assignment, false));
+
+        assertEquals("Matric Number,Full Name,Status,Submitted At,Grade,Feedback\r\n" +
+                "MAT/001,Ada,ACCEPTED,2025-02-01T10:00,80,\r\n" +
+                "MAT/002,\"'=HYPERLINK(\"\"http://x\"\")\",ACCEPTED,2025-02-01T11:00,55,'+1 see me\r\n" +
+                "MAT/003,No Work,NOT_SUBMITTED,,,\r\n", csv);
+    }
+
+    private static Course course(Long id) {
+        Department department = new Department();
+        department.setId(1L);
+        Course course = new Course();
+        course.setId(id);
+        course.setName("Algorithms");
+        course.setDepartment(department);
+        return course;
+    }
+
+    private static String body(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
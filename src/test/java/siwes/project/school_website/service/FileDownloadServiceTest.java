@@ -0,0 +1,23 @@
+package siwes.project.school_website.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileDownloadServiceTest {
+
+    @Test
+    void parseRange_handlesOpenEndedSuffixAndClampedRanges() {
+        assertArrayEquals(new long[]{100, 999}, FileDownloadService.parseRange("bytes=100-", 1000));
+        assertArrayEquals(new long[]{900, 999}, FileDownloadService.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[]{0, 999}, FileDownloadService.parseRange("bytes=0-5000", 1000));
+    }
+
+    @Test
+    void parseRange_rejectsUnsatisfiableAndIgnoresUnsupported() {
+        assertNull(FileDownloadService.parseRange("bytes=1000-", 1000));
+        assertEquals(0, FileDownloadService.parseRange("bytes=500-100", 1000).length);
+        assertEquals(0, FileDownloadService.parseRange("bytes=0-1,5-9", 1000).length);
+        assertEquals(0, FileDownloadService.parseRange("items=0-1", 1000).length);
+    }
+}
@@ -0,0 +1,50 @@
+package siwes.project.school_website.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradeHistogramTest {
+
+    @Test
+    void statistics_matchDirectComputation() {
+        GradeHistogram histogram = new GradeHistogram();
+        for (int grade : new int[]{40, 55, 55, 70, 90}) {
+            histogram.add(grade);
+        }
+
+        GradeStatistics statistics = histogram.statistics();
+
+        assertEquals(5, statistics.getCount());
+        assertEquals(62.0, statistics.getMean(), 1e-9);
+        assertEquals(286.0, statistics.getVariance(), 1e-9);
+        assertEquals(40, statistics.getMin());
+        assertEquals(90, statistics.getMax());
+        assertEquals(55, statistics.getLowerQuartile());
+        assertEquals(55, statistics.getMedian());
+        assertEquals(70, statistics.getUpperQuartile());
+    }
+
+    @Test
+    void regrade_replacesTheOldGrade() {
+        GradeHistogram histogram = new GradeHistogram();
+        histogram.add(40);
+        histogram.add(100);
+
+        histogram.remove(40);
+        histogram.add(60);
+        histogram.remove(100);
+
+        GradeStatistics statistics = histogram.statistics();
+        assertEquals(1, statistics.getCount());
+        assertEquals(60.0, statistics.getMean(), 1e-9);
+        assertEquals(0.0, statistics.getVariance(), 1e-9);
+        assertEquals(60, statistics.getMin());
+        assertEquals(60, statistics.getMax());
+
+        histogram.remove(60);
+        histogram.remove(60);
+        assertTrue(histogram.statistics().isEmpty());
+        assertNull(histogram.statistics().getMedian());
+    }
+}
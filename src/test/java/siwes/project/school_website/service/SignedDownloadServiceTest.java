@@ -0,0 +1,38 @@
+package siwes.project.school_website.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignedDownloadServiceTest {
+
+    private static final String KEY = "a".repeat(64);
+
+    private final SignedDownloadService service = new SignedDownloadService("test-key", Duration.ofMinutes(15));
+
+    @Test
+    void verify_returnsGrantForIssuingUser() {
+        String token = service.sign(KEY, "report final.pdf", "alice", Instant.now().plusSeconds(60));
+
+        SignedDownloadService.DownloadGrant grant = service.verify(token, "alice");
+
+        assertNotNull(grant);
+        assertEquals(KEY, grant.key());
+        assertEquals("report final.pdf", grant.filename());
+    }
+
+    @Test
+    void verify_rejectsOtherUserExpiryAndTampering() {
+        String token = service.sign(KEY, "report.pdf", "alice", Instant.now().plusSeconds(60));
+        char flipped = token.charAt(3) == 'A' ? 'B' : 'A';
+
+        assertNull(service.verify(token, "bob"));
+        assertNull(service.verify(service.sign(KEY, "report.pdf", "alice", Instant.now().minusSeconds(1)), "alice"));
+        assertNull(service.verify(token.substring(0, 3) + flipped + token.substring(4), "alice"));
+        assertNull(new SignedDownloadService("other-key", Duration.ofMinutes(15)).verify(token, "alice"));
+        assertNull(service.verify("not-a-token", "alice"));
+    }
+}
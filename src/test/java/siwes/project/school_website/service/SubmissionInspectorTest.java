@@ -0,0 +1,122 @@
+package siwes.project.school_website.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionInspectorTest {
+
+    private static final byte[] OLE_MAGIC = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+
+    private final SubmissionInspector inspector = new SubmissionInspector();
+
+    @Test
+    void inspect_acceptsPdfAndCountsPageObjects() throws IOException {
+        String pdf = "%PDF-1.7\n1 0 obj << /Type /Pages /Kids [2 0 R 3 0 R] /Count 2 >> endobj\n" +
+                "2 0 obj << /Type /Page >> endobj\n3 0 obj <</Type/Page/Parent 1 0 R>> endobj\ntrailer\n%%EOF\n";
+
+        SubmissionInspector.Result result = inspect(pdf.getBytes(StandardCharsets.ISO_8859_1));
+
+        assertTrue(result.accepted());
+        assertEquals(SubmissionInspector.PDF, result.detectedType());
+        assertEquals(2, result.pageCount());
+    }
+
+    @Test
+    void inspect_rejectsTruncatedPdf() throws IOException {
+        String pdf = "%PDF-1.7\n1 0 obj << /Type /Page >> endobj\n2 0 obj << /Length 4000 >> stream\nxyz";
+
+        SubmissionInspector.Result result = inspect(pdf.getBytes(StandardCharsets.ISO_8859_1));
+
+        assertFalse(result.accepted());
+        assertEquals("The PDF appears to be truncated or corrupt.", result.rejectionReason());
+    }
+
+    @Test
+    void inspect_acceptsDocxAndReadsPageCount() throws IOException {
+        byte[] docx = zip("word/document.xml", "<w:document/>",
+                "docProps/app.xml", "<Properties><Pages>3</Pages></Properties>");
+
+        SubmissionInspector.Result result = inspect(docx);
+
+        assertTrue(result.accepted());
+        assertEquals(SubmissionInspector.DOCX, result.detectedType());
+        assertEquals(3, result.pageCount());
+    }
+
+    @Test
+    void inspect_readsOnlyTheStartOfAnOversizedAppXml() throws IOException {
+        byte[] docx = zip("docProps/app.xml", "<Properties>" + " ".repeat(4 << 20) + "<Pages>3</Pages></Properties>",
+                "word/document.xml", "<w:document/>");
+
+        SubmissionInspector.Result result = inspect(docx);
+
+        assertTrue(result.accepted());
+        assertNull(result.pageCount());
+    }
+
+    @Test
+    void inspect_rejectsZipWithoutWordDocument() throws IOException {
+        SubmissionInspector.Result result = inspect(zip("xl/workbook.xml", "<workbook/>"));
+
+        assertFalse(result.accepted());
+    }
+
+    @Test
+    void inspect_acceptsCompoundFileWithWordDocumentStream() throws IOException {
+        SubmissionInspector.Result result = inspect(compoundFile("Root Entry", 5, "WordDocument", 2));
+
+        assertTrue(result.accepted());
+        assertEquals(SubmissionInspector.DOC, result.detectedType());
+    }
+
+    @Test
+    void inspect_rejectsCompoundFileThatIsNotWord() throws IOException {
+        // An .xls: same container, but a Workbook stream
+        SubmissionInspector.Result workbook = inspect(compoundFile("Root Entry", 5, "Workbook", 2));
+        // A storage (not a stream) that happens to be called WordDocument
+        SubmissionInspector.Result storage = inspect(compoundFile("Root Entry", 5, "WordDocument", 1));
+
+        assertFalse(workbook.accepted());
+        assertFalse(storage.accepted());
+    }
+
+    private SubmissionInspector.Result inspect(byte[] content) throws IOException {
+        return inspector.inspect(new ByteArrayInputStream(content));
+    }
+
+    private static byte[] zip(String... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A 512-byte header followed by one directory sector; each name/type pair is one entry.
+     */
+    private static byte[] compoundFile(Object... namesAndTypes) {
+        byte[] file = new byte[1024];
+        System.arraycopy(OLE_MAGIC, 0, file, 0, OLE_MAGIC.length);
+        for (int i = 0; i < namesAndTypes.length; i += 2) {
+            int entry = 512 + (i / 2) * 128;
+            byte[] name = (namesAndTypes[i] + "\0").getBytes(StandardCharsets.UTF_16LE);
+            System.arraycopy(name, 0, file, entry, name.length);
+            file[entry + 64] = (byte) name.length;
+            file[entry + 66] = (byte) (int) (Integer) namesAndTypes[i + 1];
+        }
+        return file;
+    }
+}
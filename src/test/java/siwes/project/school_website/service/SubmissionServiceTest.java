@@ -0,0 +1,69 @@
+package siwes.project.school_website.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import siwes.project.school_website.entity.Assignment;
+import siwes.project.school_website.entity.Course;
+import siwes.project.school_website.entity.Submission;
+import siwes.project.school_website.repository.SubmissionRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubmissionServiceTest {
+
+    @Mock
+    private SubmissionRepository submissionRepository;
+
+    @Mock
+    private GradeStatisticsService gradeStatisticsService;
+
+    @InjectMocks
+    private SubmissionService submissionService;
+
+    private Submission submission;
+
+    @BeforeEach
+    void setUp() {
+        Course course = new Course();
+        course.setId(3L);
+        Assignment assignment = new Assignment();
+        assignment.setId(5L);
+        assignment.setCourse(course);
+        submission = new Submission();
+        submission.setId(10L);
+        submission.setAssignment(assignment);
+        submission.setGrade(60);
+        when(submissionRepository.findWithStudentAndAssignmentById(10L)).thenReturn(Optional.of(submission));
+    }
+
+    @Test
+    void gradeSubmission_appliesTheChangeItSwappedIn() {
+        when(submissionRepository.updateGradeIfUnchanged(10L, 60, 85, "Good")).thenReturn(1);
+
+        Submission graded = submissionService.gradeSubmission(10L, 85, "Good");
+
+        assertEquals(85, graded.getGrade());
+        verify(submissionRepository, never()).updateGrade(any(), any(), any());
+        verify(gradeStatisticsService).finishChange(5L, 3L, List.of(new GradeStatisticsService.GradeChange(60, 85)));
+    }
+
+    @Test
+    void gradeSubmission_reloadsStatisticsWhenRegradedConcurrently() {
+        when(submissionRepository.updateGradeIfUnchanged(10L, 60, 85, "Good")).thenReturn(0);
+
+        submissionService.gradeSubmission(10L, 85, "Good");
+
+        verify(submissionRepository).updateGrade(10L, 85, "Good");
+        verify(gradeStatisticsService).finishChange(5L, 3L, null);
+    }
+}
@@ -0,0 +1,89 @@
+package siwes.project.school_website.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobCodecTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void decoded_readsTheVersionWhoseHeaderItChecked() throws IOException {
+        byte[] content = "plain text ".repeat(100).getBytes(StandardCharsets.UTF_8);
+        Path blob = Files.write(dir.resolve("blob"), content);
+        Resource decoded = BlobCodec.decoded(new FileSystemResource(blob));
+
+        // Recompression swaps the compressed form in under the same name
+        Path compressed = dir.resolve("compressed");
+        BlobCodec.compress(new ByteArrayInputStream(content), content.length, compressed, 6);
+        Files.move(compressed, blob, StandardCopyOption.REPLACE_EXISTING);
+
+        assertFalse(decoded instanceof CompressedResource);
+        assertEquals(content.length, decoded.contentLength());
+        try (InputStream in = decoded.getInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void decoded_transfersPlainBytesFromARecompressedFile() throws IOException {
+        byte[] content = "range text ".repeat(100).getBytes(StandardCharsets.UTF_8);
+        Path blob = Files.write(dir.resolve("blob"), content);
+        PinnedFileResource decoded = (PinnedFileResource) BlobCodec.decoded(new FileSystemResource(blob));
+
+        Path compressed = dir.resolve("compressed");
+        BlobCodec.compress(new ByteArrayInputStream(content), content.length, compressed, 6);
+        Files.move(compressed, blob, StandardCopyOption.REPLACE_EXISTING);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (decoded) {
+            assertEquals(50, decoded.transferTo(100, 50, Channels.newChannel(out)));
+        }
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 150), out.toByteArray());
+    }
+
+    @Test
+    void decoded_opensPlainFilesOnlyWhenRead() throws IOException {
+        byte[] content = "lazy ".repeat(10).getBytes(StandardCharsets.UTF_8);
+        Path blob = Files.write(dir.resolve("blob"), content);
+        Resource decoded = BlobCodec.decoded(new FileSystemResource(blob));
+
+        // Had decoded() opened the file, reads would still see the unlinked file
+        Files.delete(blob);
+
+        assertEquals(content.length, decoded.contentLength());
+        assertThrows(NoSuchFileException.class, decoded::getInputStream);
+    }
+
+    @Test
+    void decoded_decompressesFramedBlobs() throws IOException {
+        byte[] content = "framed ".repeat(100).getBytes(StandardCharsets.UTF_8);
+        Path blob = dir.resolve("blob");
+        BlobCodec.compress(new ByteArrayInputStream(content), content.length, blob, 6);
+
+        Resource decoded = BlobCodec.decoded(new FileSystemResource(blob));
+
+        assertInstanceOf(CompressedResource.class, decoded);
+        assertEquals(content.length, decoded.contentLength());
+        try (InputStream in = decoded.getInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+}
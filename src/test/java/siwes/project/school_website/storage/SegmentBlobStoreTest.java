@@ -0,0 +1,117 @@
+package siwes.project.school_website.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentBlobStoreTest {
+
+    // A 60-byte blob takes a 109-byte record, so two fit in a 250-byte segment
+    private static final long SEGMENT_SIZE = 250;
+
+    @TempDir
+    Path root;
+
+    private SegmentBlobStore store;
+
+    @AfterEach
+    void close() {
+        if (store != null) {
+            store.destroy();
+        }
+    }
+
+    @Test
+    void reopen_truncatesTornTailOfNewestSegment() throws IOException {
+        store = open(0.5);
+        String a = put("a");
+        store.destroy();
+        Path segment = segment(1);
+        long size = Files.size(segment);
+        Files.write(segment, new byte[]{0x53, 0x42, 0x4c, 0x42, 1, 7, 7}, StandardOpenOption.APPEND);
+
+        store = open(0.5);
+
+        assertEquals(size, Files.size(segment));
+        assertArrayEquals(blob("a"), read(a));
+        String b = put("b");
+        assertArrayEquals(blob("b"), read(b));
+    }
+
+    @Test
+    void reopen_keepsDeletedBlobsDeleted() throws IOException {
+        store = open(0.5);
+        String a = put("a");
+        String b = put("b");
+        store.delete(a);
+        store.destroy();
+
+        store = open(0.5);
+
+        assertFalse(store.exists(a));
+        assertArrayEquals(blob("b"), read(b));
+    }
+
+    @Test
+    void compact_movesLiveRecordsAndDeletesSparseSegment() throws IOException {
+        store = open(0.6);
+        String a = put("a");
+        String b = put("b");
+        String c = put("c");
+        assertTrue(Files.exists(segment(2)));
+        store.delete(a);
+
+        store.compact();
+
+        assertFalse(Files.exists(segment(1)));
+        assertFalse(store.exists(a));
+        assertArrayEquals(blob("b"), read(b));
+        assertArrayEquals(blob("c"), read(c));
+
+        store.destroy();
+        store = open(0.6);
+        assertFalse(store.exists(a));
+        assertArrayEquals(blob("b"), read(b));
+        assertArrayEquals(blob("c"), read(c));
+    }
+
+    @Test
+    void constructor_rejectsSegmentsLargerThanAnIntCanAddress() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SegmentBlobStore(new UploadLayout(root.toString()), 1024, Integer.MAX_VALUE + 1L, 0.5));
+    }
+
+    private SegmentBlobStore open(double compactionThreshold) throws IOException {
+        return new SegmentBlobStore(new UploadLayout(root.toString()), 1024, SEGMENT_SIZE, compactionThreshold);
+    }
+
+    private String put(String fill) throws IOException {
+        StagedBlob staged = store.stage(new ByteArrayInputStream(blob(fill)));
+        store.commit(staged);
+        return staged.key();
+    }
+
+    private byte[] read(String key) throws IOException {
+        try (InputStream in = store.load(key).getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private Path segment(int id) {
+        return root.resolve("segments").resolve(String.format("segment-%08d.seg", id));
+    }
+
+    private static byte[] blob(String fill) {
+        return fill.repeat(60).getBytes(StandardCharsets.UTF_8);
+    }
+}